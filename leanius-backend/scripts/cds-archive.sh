@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Creates a class data sharing archive for the unpacked application of `mvn -Pfast-startup package`.
+#
+# usage: scripts/cds-archive.sh [app dir] [archive]    (defaults: target/app, <app dir>/app.jsa)
+#
+# An archive is only used by the JVM build that created it and for the same jar path, so run this
+# where and how the application runs. The training run starts the context with the application's
+# environment (MONGODB_URI, AZURE_STORAGE_CONNECTION_STRING, ...); JAVA_OPTS must hold the options
+# the application is started with, e.g. -Dspring.aot.enabled=true.
+set -euo pipefail
+
+APP_DIR=${1:-target/app}
+ARCHIVE=${2:-$APP_DIR/app.jsa}
+JAR=$(ls "$APP_DIR"/*-app.jar)
+CLASSLIST=$(mktemp)
+trap 'rm -f "$CLASSLIST" "$CLASSLIST.static"' EXIT
+
+# Training run: the JVM exits once the context is refreshed, before the server accepts requests
+java ${JAVA_OPTS:-} -XX:DumpLoadedClassList="$CLASSLIST" -Dspring.context.exit=onRefresh -jar "$JAR"
+
+# Some JDK 17 builds (17.0.9) crash archiving lambda proxy classes (adjust_lambda_proxy_class_dictionary),
+# so lambdas are left out
+grep -v '^@lambda-proxy' "$CLASSLIST" > "$CLASSLIST.static"
+java -Xshare:dump -XX:SharedClassListFile="$CLASSLIST.static" -XX:SharedArchiveFile="$ARCHIVE" -jar "$JAR"
+
+echo "Start with: java -XX:SharedArchiveFile=$ARCHIVE ${JAVA_OPTS:+$JAVA_OPTS }-jar $JAR"
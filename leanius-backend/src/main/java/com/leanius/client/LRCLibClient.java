@@ -1,64 +1,155 @@
 package com.leanius.client;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.leanius.model.LyricLine;
+import com.leanius.util.LyricsParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Client for LRCLib API to fetch song lyrics.
  * LRCLib is a free, legal lyrics API that provides synced lyrics.
+ *
+ * Calls are timed in {@code lrclib.requests}, tagged by operation and outcome
+ * (found, not_found, client_error, server_error, timeout, error).
  */
 @Slf4j
 @Component
 public class LRCLibClient {
 
+    private static final int MAX_RESPONSE_BYTES = 1024 * 1024;
+
+    // URI templates keep query values out of the uri tag of http.client.requests
+    private static final String GET_URI = "/get?artist_name={artist}&track_name={title}";
+    private static final String GET_WITH_DURATION_URI = GET_URI + "&duration={duration}";
+    private static final String SEARCH_URI = "/search?q={query}";
+
+    // Typical LRCLib synced lyrics: ~50-100 lines per track
+    private static final int EXPECTED_LYRIC_LINES = 64;
+
     private final WebClient webClient;
+    private final LyricsParser lyricsParser;
+    private final MeterRegistry meterRegistry;
 
     @Value("${lrclib.base-url}")
     private String baseUrl;
 
-    public LRCLibClient(WebClient.Builder webClientBuilder) {
+    public LRCLibClient(WebClient.Builder webClientBuilder, LyricsParser lyricsParser, MeterRegistry meterRegistry) {
         this.webClient = webClientBuilder
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
                 .build();
+        this.lyricsParser = lyricsParser;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Fetch lyrics for a song, parsing the synced lyrics while the response streams in.
+     * The returned response has {@code syncedLines} populated instead of the raw
+     * {@code syncedLyrics} string.
+     *
+     * @return the response, or null if the track was not found or the request failed
+     */
+    public LRCLibResponse getSyncedLyrics(String artist, String title) {
+        return getSyncedLyrics(artist, title, null);
+    }
+
+    /**
+     * Same as {@link #getSyncedLyrics(String, String)}, matching on the track duration.
+     * LRCLib only returns tracks within a couple of seconds of the given duration.
+     *
+     * @param durationSeconds track duration, or null to match on artist and title only
+     */
+    public LRCLibResponse getSyncedLyrics(String artist, String title, Integer durationSeconds) {
+        String uri = baseUrl + (durationSeconds != null ? GET_WITH_DURATION_URI : GET_URI);
+
+        log.debug("Streaming lyrics from LRCLib: '{}' by '{}' ({}s)", title, artist, durationSeconds);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AtomicReference<String> outcome = new AtomicReference<>();
+        try {
+            LRCLibResponse result = webClient.get()
+                    .uri(uri, artist, title, durationSeconds)
+                    .header("User-Agent", "Leanius/1.0")
+                    .exchangeToMono(response -> {
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            outcome.set(outcomeOf(response.statusCode()));
+                            if (response.statusCode().is5xxServerError()) {
+                                log.error("LRCLib server error");
+                            } else {
+                                log.warn("LRCLib returned {} for '{}' by '{}'", response.statusCode().value(), title, artist);
+                            }
+                            return response.releaseBody().then(Mono.<LRCLibResponse>empty());
+                        }
+                        LRCLibStreamingDecoder decoder = new LRCLibStreamingDecoder(
+                                lyricsParser.newSession(EXPECTED_LYRIC_LINES), MAX_RESPONSE_BYTES);
+                        return response.bodyToFlux(DataBuffer.class)
+                                .doOnNext(buffer -> {
+                                    try {
+                                        decoder.feed(buffer);
+                                    } finally {
+                                        DataBufferUtils.release(buffer);
+                                    }
+                                })
+                                .then(Mono.fromSupplier(decoder::finish));
+                    })
+                    .timeout(Duration.ofSeconds(10))
+                    .block();
+            record(sample, "get_synced", outcome.get() != null ? outcome.get() : result != null ? "found" : "not_found");
+            return result;
+        } catch (Exception e) {
+            record(sample, "get_synced", outcomeOf(e));
+            log.warn("Failed to fetch lyrics for '{}' by '{}': {}", title, artist, e.getMessage());
+            return null;
+        }
     }
 
     /**
      * Fetch lyrics for a song by artist and title.
+     * Buffers the whole response; prefer {@link #getSyncedLyrics(String, String)} for synced lyrics.
      */
     public LRCLibResponse getLyrics(String artist, String title) {
-        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/get")
-                .queryParam("artist_name", artist)
-                .queryParam("track_name", title)
-                .build()
-                .toUriString();
-
-        log.debug("Fetching lyrics from LRCLib: {}", url);
+        log.debug("Fetching lyrics from LRCLib: '{}' by '{}'", title, artist);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AtomicReference<String> outcome = new AtomicReference<>();
         try {
-            return webClient.get()
-                    .uri(url)
+            LRCLibResponse result = webClient.get()
+                    .uri(baseUrl + GET_URI, artist, title)
                     .header("User-Agent", "Leanius/1.0")
                     .retrieve()
                     .onStatus(HttpStatusCode::is4xxClientError, response -> {
+                        outcome.set(outcomeOf(response.statusCode()));
                         log.warn("LRCLib returned 4xx for '{}' by '{}'", title, artist);
                         return Mono.empty();
                     })
                     .onStatus(HttpStatusCode::is5xxServerError, response -> {
+                        outcome.set(outcomeOf(response.statusCode()));
                         log.error("LRCLib server error");
                         return Mono.empty();
                     })
                     .bodyToMono(LRCLibResponse.class)
                     .timeout(Duration.ofSeconds(10))
                     .block();
+            record(sample, "get", outcome.get() != null ? outcome.get() : result != null ? "found" : "not_found");
+            return result;
         } catch (Exception e) {
+            record(sample, "get", outcomeOf(e));
             log.warn("Failed to fetch lyrics for '{}' by '{}': {}", title, artist, e.getMessage());
             return null;
         }
@@ -68,27 +159,45 @@ public class LRCLibClient {
      * Search for lyrics with fuzzy matching.
      */
     public LRCLibResponse[] searchLyrics(String query) {
-        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/search")
-                .queryParam("q", query)
-                .build()
-                .toUriString();
-
         log.debug("Searching lyrics on LRCLib: {}", query);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            return webClient.get()
-                    .uri(url)
+            LRCLibResponse[] results = webClient.get()
+                    .uri(baseUrl + SEARCH_URI, query)
                     .header("User-Agent", "Leanius/1.0")
                     .retrieve()
                     .bodyToMono(LRCLibResponse[].class)
                     .timeout(Duration.ofSeconds(10))
                     .block();
+            record(sample, "search", results != null && results.length > 0 ? "found" : "not_found");
+            return results;
         } catch (Exception e) {
+            record(sample, "search", e instanceof WebClientResponseException response
+                    ? outcomeOf(response.getStatusCode()) : outcomeOf(e));
             log.warn("Failed to search lyrics for '{}': {}", query, e.getMessage());
             return new LRCLibResponse[0];
         }
     }
 
+    private void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder("lrclib.requests")
+                .tags("operation", operation, "outcome", outcome)
+                .description("LRCLib API calls")
+                .register(meterRegistry));
+    }
+
+    private static String outcomeOf(HttpStatusCode status) {
+        if (status.value() == 404) {
+            return "not_found";
+        }
+        return status.is5xxServerError() ? "server_error" : "client_error";
+    }
+
+    private static String outcomeOf(Exception e) {
+        return Exceptions.unwrap(e) instanceof TimeoutException ? "timeout" : "error";
+    }
+
     /**
      * Response DTO for LRCLib API.
      */
@@ -103,5 +212,11 @@ public class LRCLibClient {
         private Boolean instrumental;
         private String plainLyrics;
         private String syncedLyrics;
+
+        /**
+         * Synced lyrics parsed while streaming (set by {@link #getSyncedLyrics(String, String)} only).
+         */
+        @JsonIgnore
+        private List<LyricLine> syncedLines;
     }
 }
@@ -0,0 +1,304 @@
+package com.leanius.client;
+
+import com.leanius.util.LyricsParser;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental decoder for the LRCLib {@code /get} JSON response.
+ *
+ * Bytes are consumed as the response buffers arrive. The {@code syncedLyrics} string is never
+ * materialized: each line is unescaped into a small reusable buffer and handed to the
+ * {@link LyricsParser.Session} as soon as its newline is seen. Other fields of the (flat)
+ * response object are collected as usual; nested values are skipped.
+ *
+ * Not thread-safe; one decoder per response.
+ */
+final class LRCLibStreamingDecoder {
+
+    private static final String SYNCED_LYRICS_FIELD = "syncedLyrics";
+
+    private enum Target { KEY, SYNCED_LYRICS, FIELD, SKIP }
+
+    private final LyricsParser.Session session;
+    private final long maxBytes;
+    private final LRCLibClient.LRCLibResponse response = new LRCLibClient.LRCLibResponse();
+
+    // Structure
+    private int depth;
+    private boolean expectingKey = true;
+    private boolean inString;
+    private boolean escaping;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+    private int pendingHighSurrogate = -1;
+    private Target target = Target.SKIP;
+    private String currentKey;
+    private final StringBuilder scalar = new StringBuilder(16);
+    private boolean syncedLyricsSeen;
+    private boolean done;
+    private long totalBytes;
+
+    // Reusable byte buffers for the current key / field value / lyric line
+    private byte[] text = new byte[64];
+    private int textLength;
+    private byte[] line = new byte[128];
+    private int lineLength;
+
+    private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer lineChars = CharBuffer.allocate(128);
+
+    LRCLibStreamingDecoder(LyricsParser.Session session, long maxBytes) {
+        this.session = session;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Consume the readable bytes of a response buffer. The caller keeps ownership of the buffer.
+     */
+    void feed(DataBuffer buffer) {
+        totalBytes += buffer.readableByteCount();
+        if (totalBytes > maxBytes) {
+            throw new DataBufferLimitException("LRCLib response exceeded " + maxBytes + " bytes");
+        }
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                while (byteBuffer.hasRemaining() && !done) {
+                    accept(byteBuffer.get());
+                }
+            }
+        }
+    }
+
+    /**
+     * Finish decoding and return the response with {@code syncedLines} populated
+     * (null when the response had no synced lyrics).
+     */
+    LRCLibClient.LRCLibResponse finish() {
+        if (syncedLyricsSeen) {
+            flushLine();
+            response.setSyncedLines(session.finish());
+        }
+        return response;
+    }
+
+    private void accept(byte b) {
+        if (inString) {
+            acceptStringByte(b);
+            return;
+        }
+        switch (b) {
+            case '"' -> startString();
+            case '{', '[' -> depth++;
+            case '}', ']' -> {
+                completeScalar();
+                depth--;
+                if (depth == 0) {
+                    done = true;
+                }
+            }
+            case ':' -> expectingKey = false;
+            case ',' -> {
+                completeScalar();
+                if (depth == 1) {
+                    expectingKey = true;
+                }
+            }
+            case ' ', '\t', '\r', '\n' -> completeScalar();
+            default -> {
+                if (depth == 1 && !expectingKey) {
+                    scalar.append((char) b);
+                }
+            }
+        }
+    }
+
+    private void startString() {
+        inString = true;
+        textLength = 0;
+        if (depth != 1) {
+            target = Target.SKIP;
+        } else if (expectingKey) {
+            target = Target.KEY;
+        } else if (SYNCED_LYRICS_FIELD.equals(currentKey)) {
+            target = Target.SYNCED_LYRICS;
+            syncedLyricsSeen = true;
+            lineLength = 0;
+        } else {
+            target = Target.FIELD;
+        }
+    }
+
+    private void acceptStringByte(byte b) {
+        if (unicodeDigits >= 0) {
+            acceptUnicodeDigit(b);
+            return;
+        }
+        if (escaping) {
+            escaping = false;
+            switch (b) {
+                case 'n' -> appendChar('\n');
+                case 't' -> appendChar('\t');
+                case 'r' -> appendChar('\r');
+                case 'b' -> appendChar('\b');
+                case 'f' -> appendChar('\f');
+                case 'u' -> {
+                    unicodeDigits = 0;
+                    unicodeValue = 0;
+                }
+                default -> appendByte(b); // \" \\ \/
+            }
+            return;
+        }
+        if (b == '\\') {
+            escaping = true;
+        } else if (b == '"') {
+            endString();
+        } else if (b == '\n') {
+            appendChar('\n');
+        } else {
+            appendByte(b);
+        }
+    }
+
+    private void acceptUnicodeDigit(byte b) {
+        int digit = Character.digit(b, 16);
+        unicodeValue = (unicodeValue << 4) | Math.max(digit, 0);
+        if (++unicodeDigits < 4) {
+            return;
+        }
+        unicodeDigits = -1;
+        int codeUnit = unicodeValue;
+        if (Character.isHighSurrogate((char) codeUnit)) {
+            pendingHighSurrogate = codeUnit;
+            return;
+        }
+        if (pendingHighSurrogate >= 0 && Character.isLowSurrogate((char) codeUnit)) {
+            appendCodePoint(Character.toCodePoint((char) pendingHighSurrogate, (char) codeUnit));
+            pendingHighSurrogate = -1;
+            return;
+        }
+        pendingHighSurrogate = -1;
+        appendCodePoint(codeUnit);
+    }
+
+    private void endString() {
+        inString = false;
+        switch (target) {
+            case KEY -> currentKey = new String(text, 0, textLength, StandardCharsets.UTF_8);
+            case FIELD -> setStringField(currentKey, new String(text, 0, textLength, StandardCharsets.UTF_8));
+            case SYNCED_LYRICS -> flushLine();
+            default -> {
+            }
+        }
+        target = Target.SKIP;
+    }
+
+    private void completeScalar() {
+        if (scalar.length() == 0) {
+            return;
+        }
+        String value = scalar.toString();
+        scalar.setLength(0);
+        if (currentKey == null || "null".equals(value)) {
+            return;
+        }
+        try {
+            switch (currentKey) {
+                case "id" -> response.setId((long) Double.parseDouble(value));
+                case "duration" -> response.setDuration((int) Math.round(Double.parseDouble(value)));
+                case "instrumental" -> response.setInstrumental(Boolean.parseBoolean(value));
+                default -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Unexpected scalar format; leave the field unset
+        }
+    }
+
+    private void setStringField(String key, String value) {
+        switch (key) {
+            case "name" -> response.setName(value);
+            case "trackName" -> response.setTrackName(value);
+            case "artistName" -> response.setArtistName(value);
+            case "albumName" -> response.setAlbumName(value);
+            case "plainLyrics" -> response.setPlainLyrics(value);
+            default -> {
+            }
+        }
+    }
+
+    private void appendChar(char c) {
+        if (c == '\n' && target == Target.SYNCED_LYRICS) {
+            flushLine();
+            return;
+        }
+        appendByte((byte) c);
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendChar((char) codePoint);
+        } else if (codePoint < 0x800) {
+            appendByte((byte) (0xC0 | (codePoint >> 6)));
+            appendByte((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (codePoint < 0x10000) {
+            appendByte((byte) (0xE0 | (codePoint >> 12)));
+            appendByte((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            appendByte((byte) (0x80 | (codePoint & 0x3F)));
+        } else {
+            appendByte((byte) (0xF0 | (codePoint >> 18)));
+            appendByte((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            appendByte((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            appendByte((byte) (0x80 | (codePoint & 0x3F)));
+        }
+    }
+
+    private void appendByte(byte b) {
+        switch (target) {
+            case SYNCED_LYRICS -> {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, lineLength * 2);
+                }
+                line[lineLength++] = b;
+            }
+            case KEY, FIELD -> {
+                if (textLength == text.length) {
+                    text = Arrays.copyOf(text, textLength * 2);
+                }
+                text[textLength++] = b;
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Decode the buffered line bytes and hand them to the lyrics parser.
+     */
+    private void flushLine() {
+        if (lineLength == 0) {
+            return;
+        }
+        if (lineChars.capacity() < lineLength) {
+            lineChars = CharBuffer.allocate(lineLength);
+        }
+        lineChars.clear();
+        utf8.reset();
+        utf8.decode(ByteBuffer.wrap(line, 0, lineLength), lineChars, true);
+        utf8.flush(lineChars);
+        lineChars.flip();
+        session.acceptLine(lineChars, 0, lineChars.length());
+        lineLength = 0;
+    }
+}
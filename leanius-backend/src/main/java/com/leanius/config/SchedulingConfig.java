@@ -0,0 +1,13 @@
+package com.leanius.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration.
+ * Enables @Scheduled background tasks (e.g., expired upload session cleanup).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,10 +1,21 @@
 package com.leanius.config;
 
 import com.leanius.security.CustomUserDetailsService;
+import com.leanius.security.EmbedApiKeyFilter;
+import com.leanius.security.EmbedRateLimitFilter;
+import com.leanius.security.EmbedRateLimiter;
 import com.leanius.security.JwtAuthenticationFilter;
+import com.leanius.security.ScrapeTokenFilter;
+import com.leanius.service.ApiKeyService;
+import com.leanius.util.ClientIpResolver;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -17,13 +28,20 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.http.HttpMethod;
 
 /**
  * Security Configuration for Spring Security.
  * Configures JWT authentication, CORS, and endpoint security.
+ *
+ * Embed and health requests, the bulk of the traffic, go through a separate minimal chain
+ * without JWT, session, CSRF or security context handling; CORS for them is applied by the
+ * servlet-level CorsFilter.
  */
 @Configuration
 @EnableWebSecurity
@@ -34,8 +52,70 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomUserDetailsService userDetailsService;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final ApiKeyService apiKeyService;
+    private final EmbedRateLimiter embedRateLimiter;
+    private final ClientIpResolver clientIpResolver;
+
+    @Value("${metrics.scrape-token:}")
+    private String metricsScrapeToken;
+
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${auth.hashing.threads:2}")
+    private int hashingThreads;
+
+    @Value("${auth.hashing.queue-capacity:50}")
+    private int hashingQueueCapacity;
+
+    /**
+     * /embed/** (API key) and /health/** (public): security headers, burst limits and API key check only.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain embedFilterChain(
+            HttpSecurity http,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            ObservationRegistry observationRegistry) throws Exception {
+        http
+                .securityMatcher("/embed/**", "/health/**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(AbstractHttpConfigurer::disable)
+                .securityContext(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .servletApi(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .exceptionHandling(AbstractHttpConfigurer::disable)
+                .addFilterAfter(new EmbedRateLimitFilter(embedRateLimiter, clientIpResolver, exceptionResolver), HeaderWriterFilter.class)
+                .addFilterAfter(new EmbedApiKeyFilter(apiKeyService, exceptionResolver, observationRegistry), EmbedRateLimitFilter.class);
+
+        return http.build();
+    }
+
+    /**
+     * /actuator/prometheus: bearer token only ({@code metrics.scrape-token}).
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(AbstractHttpConfigurer::disable)
+                .securityContext(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .servletApi(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .exceptionHandling(AbstractHttpConfigurer::disable)
+                .addFilterAfter(new ScrapeTokenFilter(metricsScrapeToken), HeaderWriterFilter.class);
+
+        return http.build();
+    }
 
     @Bean
+    @Order(3)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
@@ -46,8 +126,7 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers(
                                 "/auth/**",
-                                "/embed/**",
-                                "/health/**",
+                                "/files/**",
                                 "/actuator/**"
                         ).permitAll()
                         // All other endpoints require authentication
@@ -62,6 +141,16 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * The JWT filter runs inside securityFilterChain only, not as a servlet filter for every request.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
@@ -75,8 +164,25 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * Existing hashes keep their own cost; raising the strength re-encodes them on the next login.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    /**
+     * Threads computing password hashes. A full queue rejects new hashes immediately.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hashingThreads);
+        executor.setMaxPoolSize(hashingThreads);
+        executor.setQueueCapacity(hashingQueueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+        return executor;
     }
 }
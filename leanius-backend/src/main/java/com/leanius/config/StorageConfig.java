@@ -0,0 +1,105 @@
+package com.leanius.config;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.tracing.opentelemetry.OpenTelemetryTracingOptions;
+import com.azure.core.util.ClientOptions;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
+import io.opentelemetry.api.OpenTelemetry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Storage Configuration.
+ * One HTTP client (Netty connection pool) shared by all Azure Storage clients.
+ * Azure Storage calls are traced as spans with the application's OpenTelemetry SDK.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${azure.storage.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${azure.storage.http.connect-timeout:PT10S}")
+    private Duration connectTimeout;
+
+    @Value("${azure.storage.http.response-timeout:PT30S}")
+    private Duration responseTimeout;
+
+    @Value("${azure.storage.http.read-timeout:PT30S}")
+    private Duration readTimeout;
+
+    @Value("${azure.storage.http.write-timeout:PT60S}")
+    private Duration writeTimeout;
+
+    @Value("${azure.storage.http.idle-timeout:PT60S}")
+    private Duration idleTimeout;
+
+    @Value("${azure.storage.http.pending-acquire-max:1000}")
+    private int pendingAcquireMax;
+
+    @Value("${azure.storage.http.pending-acquire-timeout:PT60S}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${azure.storage.retry.max-tries:3}")
+    private int maxTries;
+
+    @Value("${azure.storage.retry.try-timeout:PT2M}")
+    private Duration tryTimeout;
+
+    /**
+     * Every in-flight block or range holds one connection, so size the pool for
+     * concurrent transfers x parallelism. Requests beyond it wait for a free connection,
+     * up to {@code pending-acquire-max} requests for {@code pending-acquire-timeout}.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "azure", matchIfMissing = true)
+    public ConnectionProvider azureConnectionPool() {
+        return ConnectionProvider.builder("azure-storage")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(idleTimeout)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "azure", matchIfMissing = true)
+    public HttpClient azureHttpClient(ConnectionProvider azureConnectionPool) {
+        return new NettyAsyncHttpClientBuilder()
+                .connectionProvider(azureConnectionPool)
+                .connectTimeout(connectTimeout)
+                .responseTimeout(responseTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .build();
+    }
+
+    /**
+     * Exponential retries; {@code try-timeout} bounds a single attempt (one block or range).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "azure", matchIfMissing = true)
+    public RequestRetryOptions azureRetryOptions() {
+        return new RequestRetryOptions(RetryPolicyType.EXPONENTIAL, maxTries, tryTimeout, null, null, null);
+    }
+
+    /**
+     * Spans for every Azure request (including each staged block and downloaded range), children of
+     * the span current when the call is made. Without tracing configured the SDK's no-op tracer is used.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "azure", matchIfMissing = true)
+    public ClientOptions azureClientOptions(ObjectProvider<OpenTelemetry> openTelemetry) {
+        OpenTelemetryTracingOptions tracingOptions = new OpenTelemetryTracingOptions();
+        openTelemetry.ifAvailable(tracingOptions::setOpenTelemetry);
+        return new ClientOptions().setTracingOptions(tracingOptions);
+    }
+}
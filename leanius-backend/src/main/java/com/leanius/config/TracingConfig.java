@@ -0,0 +1,79 @@
+package com.leanius.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Tracing Configuration.
+ *
+ * HTTP server and WebClient spans come from Spring Boot's observations, Azure Storage spans
+ * from the Azure SDK (see StorageConfig). This adds spans for Mongo commands and multipart
+ * parsing, and an optional exporter writing sampled spans to a file.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Mongo commands as child spans of the observation current on the calling thread.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoObservationCustomizer(ObservationRegistry observationRegistry) {
+        return settings -> settings
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+    }
+
+    /**
+     * Command latency is already recorded in mongodb.driver.commands; the Mongo observations are
+     * only kept for their spans.
+     */
+    @Bean
+    public MeterFilter mongoObservationMeterFilter() {
+        return MeterFilter.denyNameStartsWith("spring.data.mongodb.command");
+    }
+
+    /**
+     * Sampled spans as OTLP JSON, written by the "traces" appender of logback-spring.xml.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.file.enabled", havingValue = "true")
+    public SpanExporter fileSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+
+    /**
+     * Boot's multipart resolver, with parsing (the whole upload is read to a temp file before the
+     * controller runs) observed as the "multipart" upload stage.
+     */
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver(MultipartProperties multipartProperties,
+                                               ObservationRegistry observationRegistry) {
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver() {
+            @Override
+            public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) {
+                return Observation.createNotStarted("upload.stage", observationRegistry)
+                        .lowCardinalityKeyValue("stage", "multipart")
+                        .contextualName("upload multipart")
+                        .observe(() -> super.resolveMultipart(request));
+            }
+        };
+        resolver.setResolveLazily(multipartProperties.isResolveLazily());
+        resolver.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return resolver;
+    }
+}
@@ -2,6 +2,8 @@ package com.leanius.controller;
 
 import com.leanius.dto.*;
 import com.leanius.service.AuthService;
+import com.leanius.util.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,13 +18,15 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final ClientIpResolver clientIpResolver;
 
     /**
      * Register a new user.
      */
     @PostMapping("/signup")
-    public ResponseEntity<ApiResponse<AuthResponse>> signup(@Valid @RequestBody SignupRequest request) {
-        AuthResponse response = authService.signup(request);
+    public ResponseEntity<ApiResponse<AuthResponse>> signup(@Valid @RequestBody SignupRequest request,
+                                                            HttpServletRequest httpRequest) {
+        AuthResponse response = authService.signup(request, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(ApiResponse.success(response, "Signup successful"));
     }
 
@@ -30,8 +34,9 @@ public class AuthController {
      * Login an existing user.
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request,
+                                                           HttpServletRequest httpRequest) {
+        AuthResponse response = authService.login(request, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(ApiResponse.success(response, "Login successful"));
     }
 
@@ -48,8 +53,9 @@ public class AuthController {
      * Initiate password reset.
      */
     @PostMapping("/reset-password")
-    public ResponseEntity<ApiResponse<Void>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
-        authService.initiatePasswordReset(request.getEmail());
+    public ResponseEntity<ApiResponse<Void>> resetPassword(@Valid @RequestBody ResetPasswordRequest request,
+                                                           HttpServletRequest httpRequest) {
+        authService.initiatePasswordReset(request.getEmail(), clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(ApiResponse.success("Password reset link sent to your email"));
     }
 
@@ -57,8 +63,9 @@ public class AuthController {
      * Verify reset token.
      */
     @GetMapping("/verify-reset-token/{token}")
-    public ResponseEntity<ApiResponse<Boolean>> verifyResetToken(@PathVariable String token) {
-        boolean valid = authService.verifyResetToken(token);
+    public ResponseEntity<ApiResponse<Boolean>> verifyResetToken(@PathVariable String token,
+                                                                 HttpServletRequest httpRequest) {
+        boolean valid = authService.verifyResetToken(token, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(ApiResponse.success(valid));
     }
 }
@@ -2,20 +2,33 @@ package com.leanius.controller;
 
 import com.leanius.dto.*;
 import com.leanius.exception.RateLimitExceededException;
-import com.leanius.service.ApiKeyService;
+import com.leanius.security.EmbedApiKeyFilter;
+import com.leanius.service.AudioCacheService;
+import com.leanius.service.EmbedQuotaService;
+import com.leanius.service.LyricTimelineService;
 import com.leanius.service.SongService;
+import com.leanius.util.RangeResponseWriter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Controller for embed endpoints (public, API key authenticated).
+ * The key is verified by EmbedApiKeyFilter, which passes its owner as a request attribute.
+ * Each step of a request is observed as an embed.stage (metric and span).
  */
 @Slf4j
 @RestController
@@ -23,30 +36,25 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EmbedController {
 
-    private static final int MAX_DAILY_REQUESTS = 1000;
-
     private final SongService songService;
-    private final ApiKeyService apiKeyService;
+    private final EmbedQuotaService embedQuotaService;
+    private final LyricTimelineService lyricTimelineService;
+    private final AudioCacheService audioCacheService;
+    private final RangeResponseWriter rangeResponseWriter;
+    private final ObservationRegistry observationRegistry;
 
     /**
      * Check if songs have changed since last fetch.
      * Used for caching strategy.
      */
     @GetMapping("/check")
-    public ResponseEntity<ApiResponse<EmbedCheckResponse>> checkChanges(@RequestParam("key") String apiKey) {
-        // Validate API key
-        String userId = apiKeyService.validateApiKey(apiKey);
-
-        // Check rate limit
-        if (apiKeyService.isRateLimitExceeded(apiKey, MAX_DAILY_REQUESTS)) {
-            throw new RateLimitExceededException();
-        }
-
-        // Increment request count
-        apiKeyService.incrementDailyCount(apiKey);
+    public ResponseEntity<ApiResponse<EmbedCheckResponse>> checkChanges(
+            @RequestParam("key") String apiKey,
+            @RequestAttribute(EmbedApiKeyFilter.USER_ID) String userId) {
+        countRequest(userId);
 
         // Get latest song update time
-        LocalDateTime lastUpdate = songService.getLatestSongUpdateTime(userId);
+        LocalDateTime lastUpdate = stage("songs", () -> songService.getLatestSongUpdateTime(userId));
 
         EmbedCheckResponse response = EmbedCheckResponse.builder()
                 .hasChanges(lastUpdate != null)
@@ -61,21 +69,14 @@ public class EmbedController {
      * Returns full data including audio URLs and synced lyrics.
      */
     @GetMapping("/songs")
-    public ResponseEntity<ApiResponse<EmbedSongsResponse>> getSongs(@RequestParam("key") String apiKey) {
-        // Validate API key
-        String userId = apiKeyService.validateApiKey(apiKey);
-
-        // Check rate limit
-        if (apiKeyService.isRateLimitExceeded(apiKey, MAX_DAILY_REQUESTS)) {
-            throw new RateLimitExceededException();
-        }
-
-        // Increment request count
-        apiKeyService.incrementDailyCount(apiKey);
+    public ResponseEntity<ApiResponse<EmbedSongsResponse>> getSongs(
+            @RequestParam("key") String apiKey,
+            @RequestAttribute(EmbedApiKeyFilter.USER_ID) String userId) {
+        countRequest(userId);
 
         // Get all songs
-        List<SongDTO> songs = songService.getUserSongs(userId);
-        LocalDateTime lastUpdate = songService.getLatestSongUpdateTime(userId);
+        List<SongDTO> songs = stage("songs", () -> songService.getUserSongs(userId));
+        LocalDateTime lastUpdate = stage("songs", () -> songService.getLatestSongUpdateTime(userId));
 
         EmbedSongsResponse response = EmbedSongsResponse.builder()
                 .userId(userId)
@@ -87,4 +88,72 @@ public class EmbedController {
         log.debug("Embed songs returned for user: {} ({} songs)", userId, songs.size());
         return ResponseEntity.ok(ApiResponse.success(response));
     }
+
+    /**
+     * Get the active lyric line and the next lines for a playback position.
+     * Lets low-power players seek in O(log n) instead of scanning and offsetting the lyrics themselves.
+     */
+    @GetMapping("/songs/{songId}/lyrics")
+    public ResponseEntity<ApiResponse<LyricPositionResponse>> getLyricsAt(
+            @RequestParam("key") String apiKey,
+            @RequestAttribute(EmbedApiKeyFilter.USER_ID) String userId,
+            @PathVariable String songId,
+            @RequestParam("positionMs") long positionMs,
+            @RequestParam(value = "next", defaultValue = "3") int nextLines) {
+        countRequest(userId);
+
+        LyricPositionResponse response = stage("lyrics",
+                () -> lyricTimelineService.getLyricsAt(songId, userId, positionMs, nextLines, true));
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Stream a song's audio with HTTP Range support, served from the local disk cache.
+     * Only requests starting at byte 0 count towards the daily limit, so seeking and the
+     * follow-up range requests of one playback are not counted separately.
+     */
+    @GetMapping("/songs/{songId}/audio")
+    public void streamAudio(@RequestParam("key") String apiKey,
+                            @RequestAttribute(EmbedApiKeyFilter.USER_ID) String userId,
+                            @PathVariable String songId,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        if (isPlaybackStart(request.getHeader(HttpHeaders.RANGE))) {
+            countRequest(userId);
+        }
+
+        SongService.AudioSource source = stage("songs", () -> songService.getAudioSource(songId, userId));
+        try (AudioCacheService.OpenAudio audio = stage("cache", () -> audioCacheService.open(source.getBlobName()))) {
+            observation("stream").observeChecked(() -> rangeResponseWriter.write(request, response, audio.getPath(),
+                    audio.getChannel(), audio.getSize(), source.getContentType(), audio.getEtag()));
+        }
+    }
+
+    /**
+     * Enforce and count the daily request limit of a key's owner.
+     */
+    private void countRequest(String userId) {
+        observation("quota").observe(() -> {
+            if (!embedQuotaService.tryAcquire(userId)) {
+                throw new RateLimitExceededException();
+            }
+        });
+    }
+
+    private <T> T stage(String stage, Supplier<T> step) {
+        return observation(stage).observe(step);
+    }
+
+    /**
+     * One step of an embed request, as an embed.stage metric and span.
+     */
+    private Observation observation(String stage) {
+        return Observation.createNotStarted("embed.stage", observationRegistry)
+                .lowCardinalityKeyValue("stage", stage)
+                .contextualName("embed " + stage);
+    }
+
+    private static boolean isPlaybackStart(String range) {
+        return range == null || range.replace(" ", "").startsWith("bytes=0-");
+    }
 }
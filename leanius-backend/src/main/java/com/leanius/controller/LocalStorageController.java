@@ -0,0 +1,68 @@
+package com.leanius.controller;
+
+import com.leanius.exception.ResourceNotFoundException;
+import com.leanius.service.LocalStorageService;
+import com.leanius.service.StorageBackend;
+import com.leanius.util.FileValidator;
+import com.leanius.util.RangeResponseWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Serves the signed read and upload URLs of the local storage backend (storage.backend=local).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/files")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageController {
+
+    private final LocalStorageService localStorageService;
+    private final RangeResponseWriter rangeResponseWriter;
+    private final FileValidator fileValidator;
+
+    /**
+     * Read a blob, with HTTP Range support.
+     */
+    @GetMapping("/{*blobName}")
+    public void download(@PathVariable String blobName,
+                         @RequestParam("exp") long expires,
+                         @RequestParam("sig") String signature,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String name = blobName.substring(1);
+        localStorageService.checkSignature(LocalStorageService.READ, name, expires, signature);
+
+        StorageBackend.BlobInfo info = localStorageService.head(name);
+        if (info == null) {
+            throw new ResourceNotFoundException("File", "name", name);
+        }
+        rangeResponseWriter.write(request, response, localStorageService.pathOf(name), info.getSize(),
+                fileValidator.getContentType(fileValidator.getFileExtension(name)), info.getEtag());
+    }
+
+    /**
+     * Upload target of direct uploads (the local equivalent of a write SAS URL).
+     */
+    @PutMapping("/{*blobName}")
+    public ResponseEntity<Void> upload(@PathVariable String blobName,
+                                       @RequestParam("exp") long expires,
+                                       @RequestParam("sig") String signature,
+                                       HttpServletRequest request) throws IOException {
+        String name = blobName.substring(1);
+        localStorageService.checkSignature(LocalStorageService.WRITE, name, expires, signature);
+
+        localStorageService.uploadStream(request.getInputStream(), name, fileValidator.getMaxFileSize(),
+                true, sha256 -> null);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+}
@@ -1,7 +1,10 @@
 package com.leanius.controller;
 
 import com.leanius.dto.*;
+import com.leanius.exception.InvalidFileException;
+import com.leanius.service.LyricTimelineService;
 import com.leanius.service.SongService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +13,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -21,6 +26,7 @@ import java.util.List;
 public class SongController {
 
     private final SongService songService;
+    private final LyricTimelineService lyricTimelineService;
 
     /**
      * Upload a new song.
@@ -35,6 +41,28 @@ public class SongController {
         return ResponseEntity.ok(ApiResponse.success(response, "Upload successful. Please confirm lyrics."));
     }
 
+    /**
+     * Upload a new song as a raw request body (Content-Type: audio/*).
+     * The body is streamed straight to storage without multipart buffering. An optional
+     * X-Content-SHA256 header lets already stored content skip the upload to storage.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<ApiResponse<SongUploadResponse>> uploadSongStream(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam("title") String title,
+            @RequestParam("artist") String artist,
+            @RequestParam("filename") String filename,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String contentSha256,
+            HttpServletRequest request) {
+        try (InputStream body = request.getInputStream()) {
+            SongUploadResponse response = songService.uploadSongStream(body, filename, request.getContentType(),
+                    request.getContentLengthLong(), contentSha256, title, artist, userDetails.getUsername());
+            return ResponseEntity.ok(ApiResponse.success(response, "Upload successful. Please confirm lyrics."));
+        } catch (IOException e) {
+            throw new InvalidFileException("Failed to read upload: " + e.getMessage());
+        }
+    }
+
     /**
      * Confirm or reject lyrics for an uploaded song.
      */
@@ -93,4 +121,18 @@ public class SongController {
                 request.getFrequencyWeight(), request.getSyncOffset());
         return ResponseEntity.ok(ApiResponse.success(song, "Settings saved successfully"));
     }
+
+    /**
+     * Get the active lyric line and the next lines for a playback position (e.g. for previews).
+     */
+    @GetMapping("/{songId}/lyrics")
+    public ResponseEntity<ApiResponse<LyricPositionResponse>> getLyricsAt(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String songId,
+            @RequestParam("positionMs") long positionMs,
+            @RequestParam(value = "next", defaultValue = "3") int nextLines) {
+        LyricPositionResponse response = lyricTimelineService.getLyricsAt(
+                songId, userDetails.getUsername(), positionMs, nextLines, false);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
 }
@@ -0,0 +1,104 @@
+package com.leanius.controller;
+
+import com.leanius.dto.ApiResponse;
+import com.leanius.dto.DirectUploadResponse;
+import com.leanius.dto.SongUploadResponse;
+import com.leanius.dto.StartUploadRequest;
+import com.leanius.dto.UploadSessionResponse;
+import com.leanius.exception.InvalidFileException;
+import com.leanius.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Controller for direct-to-storage and resumable uploads.
+ */
+@RestController
+@RequestMapping("/songs/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final UploadSessionService uploadSessionService;
+
+    /**
+     * Start a direct upload and get a write-only URL for the audio file.
+     */
+    @PostMapping("/direct")
+    public ResponseEntity<ApiResponse<DirectUploadResponse>> startDirectUpload(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody StartUploadRequest request) {
+        DirectUploadResponse response = uploadSessionService.startDirectUpload(userDetails.getUsername(), request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Upload the file to the given URL, then complete the upload."));
+    }
+
+    /**
+     * Start a resumable (chunked) upload.
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> startResumableUpload(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody StartUploadRequest request) {
+        UploadSessionResponse response = uploadSessionService.startResumableUpload(userDetails.getUsername(), request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Upload the file in chunks, then complete the upload."));
+    }
+
+    /**
+     * Upload one chunk (raw body) with its SHA-256 checksum. Chunks may be sent in any order and retried.
+     */
+    @PutMapping("/{uploadId}/chunks/{index}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> uploadChunk(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-SHA256", required = false) String sha256,
+            HttpServletRequest request) {
+        try (InputStream body = request.getInputStream()) {
+            UploadSessionResponse response = uploadSessionService.uploadChunk(uploadId, userDetails.getUsername(),
+                    index, body, request.getContentLengthLong(), sha256);
+            return ResponseEntity.ok(ApiResponse.success(response, "Chunk " + index + " received"));
+        } catch (IOException e) {
+            throw new InvalidFileException("Failed to read chunk: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the progress of an upload.
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getUploadStatus(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String uploadId) {
+        return ResponseEntity.ok(ApiResponse.success(
+                uploadSessionService.getStatus(uploadId, userDetails.getUsername())));
+    }
+
+    /**
+     * Finalize an upload once all data is in storage.
+     */
+    @PostMapping({"/{uploadId}/complete", "/direct/{uploadId}/complete"})
+    public ResponseEntity<ApiResponse<SongUploadResponse>> completeUpload(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String uploadId) {
+        SongUploadResponse response = uploadSessionService.complete(uploadId, userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success(response, "Upload successful. Please confirm lyrics."));
+    }
+
+    /**
+     * Cancel an upload.
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> cancelUpload(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String uploadId) {
+        uploadSessionService.cancel(uploadId, userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success("Upload cancelled"));
+    }
+}
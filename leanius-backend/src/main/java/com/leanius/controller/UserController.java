@@ -1,8 +1,11 @@
 package com.leanius.controller;
 
 import com.leanius.dto.*;
+import com.leanius.service.ApiKeyService;
 import com.leanius.service.AuthService;
 import com.leanius.service.UserService;
+import com.leanius.util.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +23,8 @@ public class UserController {
 
     private final UserService userService;
     private final AuthService authService;
+    private final ApiKeyService apiKeyService;
+    private final ClientIpResolver clientIpResolver;
 
     /**
      * Get current user's profile.
@@ -48,8 +53,20 @@ public class UserController {
     @PutMapping("/password")
     public ResponseEntity<ApiResponse<Void>> changePassword(
             @AuthenticationPrincipal UserDetails userDetails,
-            @Valid @RequestBody ChangePasswordRequest request) {
-        authService.changePassword(userDetails.getUsername(), request);
+            @Valid @RequestBody ChangePasswordRequest request,
+            HttpServletRequest httpRequest) {
+        authService.changePassword(userDetails.getUsername(), request, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(ApiResponse.success("Password changed successfully"));
     }
+
+    /**
+     * Replace the current user's API key; the old key stops working.
+     */
+    @PostMapping("/api-key/regenerate")
+    public ResponseEntity<ApiResponse<ApiKeyResponse>> rotateApiKey(
+            @AuthenticationPrincipal UserDetails userDetails) {
+        String apiKey = apiKeyService.rotateApiKey(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success(
+                ApiKeyResponse.builder().apiKey(apiKey).build(), "API key rotated successfully"));
+    }
 }
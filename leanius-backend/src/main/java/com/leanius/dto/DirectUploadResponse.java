@@ -0,0 +1,29 @@
+package com.leanius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Response DTO for a direct-to-storage upload.
+ * The client sends the file with {@code method} to {@code uploadUrl} including {@code headers},
+ * then calls the complete endpoint with {@code uploadId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectUploadResponse {
+
+    private String uploadId;
+    private String uploadUrl; // Write-only SAS URL for the target blob
+    private String method;
+    private Map<String, String> headers;
+    private LocalDateTime expiresAt;
+    private String lyricsPreview; // First few lines of lyrics
+    private String syncType;
+}
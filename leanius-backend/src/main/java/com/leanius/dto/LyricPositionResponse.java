@@ -0,0 +1,39 @@
+package com.leanius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for the "lyrics at playback position" lookup.
+ * Start times already include the song's sync offset.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LyricPositionResponse {
+
+    private String songId;
+    private long version; // Song version (last update, epoch ms) the timeline was built from
+    private long positionMs;
+    private IndexedLyricLine activeLine; // null before the first line
+    private List<IndexedLyricLine> nextLines;
+    private Long nextChangeMs; // Start of the next line, null after the last one
+
+    /**
+     * A lyric line with its index in the song's syncedLyrics list.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexedLyricLine {
+        private int index;
+        private long startTimeMs;
+        private String text;
+    }
+}
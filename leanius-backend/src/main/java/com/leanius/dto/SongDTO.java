@@ -21,7 +21,9 @@ public class SongDTO {
     private String title;
     private String artist;
     private String audioUrl;
-    private long duration;
+    private long duration; // Milliseconds
+    private int bitrate; // Average bits per second
+    private int sampleRate; // Hz
     private int frequencyWeight;
     private long syncOffset;
     private String syncType;
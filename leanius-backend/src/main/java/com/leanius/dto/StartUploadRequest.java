@@ -0,0 +1,30 @@
+package com.leanius.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for starting a direct or resumable upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StartUploadRequest {
+
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    @NotBlank(message = "Artist is required")
+    private String artist;
+
+    @NotBlank(message = "Filename is required")
+    private String filename;
+
+    private String contentType;
+
+    @Positive(message = "Size must be positive")
+    private long size; // Bytes
+}
@@ -0,0 +1,28 @@
+package com.leanius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO describing a resumable upload session and its progress.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+
+    private String uploadId;
+    private int chunkSize; // Bytes per chunk (the last one may be smaller)
+    private int totalChunks;
+    private List<Integer> receivedChunks;
+    private long receivedBytes;
+    private LocalDateTime expiresAt;
+    private String lyricsPreview; // First few lines of lyrics
+    private String syncType;
+}
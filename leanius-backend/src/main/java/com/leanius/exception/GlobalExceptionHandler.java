@@ -2,6 +2,7 @@ package com.leanius.exception;
 
 import com.leanius.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -30,6 +31,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("DUPLICATE_EMAIL", ex.getMessage()));
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleConflict(ConflictException ex) {
+        log.warn("Conflicting request: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("CONFLICT", ex.getMessage()));
+    }
+
     @ExceptionHandler(InvalidFileException.class)
     public ResponseEntity<ApiResponse<Void>> handleInvalidFile(InvalidFileException ex) {
         log.warn("Invalid file upload: {}", ex.getMessage());
@@ -88,10 +97,23 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(RateLimitExceededException.class)
     public ResponseEntity<ApiResponse<Void>> handleRateLimit(RateLimitExceededException ex) {
-        log.warn("Rate limit exceeded: {}", ex.getMessage());
+        // Every limiter counts its rejections (embed.ratelimit.rejected, apikey.quota.rejected,
+        // auth.throttle.rejected); a log event per rejected request during a flood adds nothing
+        log.debug("Rate limit exceeded: {}", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        }
+        return response.body(ApiResponse.error("RATE_LIMIT_EXCEEDED", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleServiceBusy(ServiceBusyException ex) {
+        log.warn("Service busy: {}", ex.getMessage());
         return ResponseEntity
-                .status(HttpStatus.TOO_MANY_REQUESTS)
-                .body(ApiResponse.error("RATE_LIMIT_EXCEEDED", ex.getMessage()));
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error("SERVICE_BUSY", ex.getMessage()));
     }
 
     @ExceptionHandler(StorageException.class)
@@ -5,15 +5,27 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 /**
  * Exception thrown when API rate limit is exceeded.
+ * A positive {@code retryAfterSeconds} is sent as Retry-After.
  */
 @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
 public class RateLimitExceededException extends RuntimeException {
 
+    private final long retryAfterSeconds;
+
     public RateLimitExceededException() {
-        super("Rate limit exceeded. Please try again later.");
+        this("Rate limit exceeded. Please try again later.");
     }
 
     public RateLimitExceededException(String message) {
+        this(message, 0);
+    }
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
@@ -0,0 +1,19 @@
+package com.leanius.exception;
+
+/**
+ * Exception thrown when a bounded resource (e.g., password hashing) is saturated.
+ * The request was not processed and can be retried after {@code retryAfterSeconds}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,91 @@
+package com.leanius.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the events per second that request-path loggers may write, so a burst of rejected keys or
+ * failed logins does not turn into a burst of log I/O. Events over the cap are dropped before they
+ * are created; ERROR events are never dropped.
+ *
+ * Each logger named by (or below) a configured {@code logger} has its own budget of
+ * {@code maxPerSecond}. Dropped events are reported as one WARN line of this class's logger,
+ * written with the next event of that logger after its window has passed.
+ */
+public class LogRateLimiter extends TurboFilter {
+
+    private static final String SELF = LogRateLimiter.class.getName();
+    private static final Window UNLIMITED = new Window();
+
+    private final List<String> loggers = new ArrayList<>();
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private int maxPerSecond = 20;
+
+    public void addLogger(String logger) {
+        loggers.add(logger);
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        // format is null for isXxxEnabled() checks; disabled levels never reach an appender
+        if (format == null || level.isGreaterOrEqual(Level.ERROR)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windows.computeIfAbsent(logger.getName(), this::windowFor);
+        if (window == UNLIMITED) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.second.get();
+        if (second != current && window.second.compareAndSet(current, second)) {
+            window.count.set(0);
+            int dropped = window.dropped.getAndSet(0);
+            if (dropped > 0) {
+                ((LoggerContext) getContext()).getLogger(SELF).warn(
+                        "Dropped {} log events of {} (limit {}/s)", dropped, logger.getName(), maxPerSecond);
+            }
+        }
+        if (window.count.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        window.dropped.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    private Window windowFor(String loggerName) {
+        if (!loggerName.equals(SELF)) {
+            for (String prefix : loggers) {
+                if (loggerName.equals(prefix) || loggerName.startsWith(prefix + ".")) {
+                    return new Window();
+                }
+            }
+        }
+        return UNLIMITED;
+    }
+
+    /**
+     * Events of one logger in the current one-second window.
+     */
+    private static final class Window {
+        final AtomicLong second = new AtomicLong();
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger dropped = new AtomicInteger();
+    }
+}
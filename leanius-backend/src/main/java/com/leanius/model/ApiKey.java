@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 /**
  * ApiKey entity for tracking API keys used in embed endpoints.
  * Each user gets one unique API key for their embed player.
+ * New keys are signed and carry the user ID (see EmbedKeyCodec); older random keys
+ * are resolved through this collection.
  */
 @Data
 @Builder
@@ -30,17 +32,16 @@ public class ApiKey {
     @Indexed(unique = true)
     private String key; // The actual API key string
 
-    @Builder.Default
-    private LocalDateTime createdAt = LocalDateTime.now();
-
-    private LocalDateTime lastUsed;
-
     /**
-     * Daily request count for rate limiting.
-     * Resets at midnight UTC.
+     * Generation of the current signed key; 0 for a legacy random key.
+     * Signed keys of lower generations are revoked.
      */
     @Builder.Default
-    private int dailyRequestCount = 0;
+    private int generation = 0;
 
-    private LocalDateTime dailyCountResetAt;
+    @Indexed(sparse = true)
+    private LocalDateTime rotatedAt; // Last rotation, polled by other instances
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
 }
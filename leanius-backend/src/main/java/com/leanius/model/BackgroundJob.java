@@ -0,0 +1,47 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BackgroundJob entity: a durable unit of deferred work (e.g., deleting a blob).
+ * A job is due once {@code runAt} has passed and it is not leased by a worker;
+ * it is removed when it succeeds and rescheduled with backoff when it fails, until it is
+ * parked after its last attempt.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "jobs")
+@CompoundIndex(name = "due_idx", def = "{'runAt': 1, 'leaseUntil': 1}")
+public class BackgroundJob {
+
+    @Id
+    private String id;
+
+    private String type; // Handler that runs the job, e.g. DELETE_BLOB
+
+    @Builder.Default
+    private Map<String, String> payload = new HashMap<>();
+
+    private LocalDateTime runAt; // Not run before this time
+    private String leaseOwner; // Worker currently running the job
+    private LocalDateTime leaseUntil; // Lease expiry; an expired lease makes the job due again
+
+    private int attempts;
+    private String lastError;
+    private LocalDateTime parkedAt; // Set (and runAt unset) once retries are exhausted
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
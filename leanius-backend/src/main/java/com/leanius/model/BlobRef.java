@@ -0,0 +1,38 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * BlobRef entity for content-addressed audio storage.
+ * One document per distinct audio content (keyed by SHA-256), counting the songs that use its blob.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "blobRefs")
+public class BlobRef {
+
+    @Id
+    private String id; // Hex SHA-256 of the content
+
+    @Indexed
+    private String blobName; // Blob holding the content
+    private long size; // Bytes
+    private String etag; // ETag of the blob when it was stored
+
+    private int refCount; // Songs referencing this content
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt;
+}
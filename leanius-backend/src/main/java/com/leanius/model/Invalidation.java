@@ -0,0 +1,36 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Invalidation entity: a change to a cached document, for instances that cannot use change
+ * streams (standalone Mongo). Written by the changing instance, polled by the others
+ * (see CacheInvalidationBus).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "invalidations")
+public class Invalidation {
+
+    @Id
+    private String id;
+
+    private String collection; // users, apiKeys or songs
+    private String documentId;
+    private String userId; // apiKeys: owner of the key
+    private int generation; // apiKeys: current key generation
+    private String instanceId; // Instance that made the change
+
+    @Indexed(expireAfter = "1h")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * QuotaCounter entity: the embed requests of one user and UTC day, shared by all instances.
+ * Instances lease blocks of it (see EmbedQuotaService) and give back what they did not use.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "quotaCounters")
+public class QuotaCounter {
+
+    @Id
+    private String id; // <userId>:<yyyy-MM-dd>
+
+    private String userId;
+
+    private int leased; // Requests handed out to instances, minus those given back
+
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expireAt; // Removed a day after its window
+}
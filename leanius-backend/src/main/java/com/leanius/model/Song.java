@@ -33,10 +33,17 @@ public class Song {
     private String title;
     private String artist;
 
-    private String audioUrl; // Azure Storage URL
+    private String audioUrl; // Signed storage URL
+
+    @Indexed(sparse = true)
+    private String blobName; // Blob holding the audio; backfilled from audioUrl for older songs
+
     private long audioFileSize; // Bytes
     private String audioFormat; // mp3, wav, ogg, flac
     private long duration; // Milliseconds
+    private int bitrate; // Average bits per second
+    private int sampleRate; // Hz
+    private String contentHash; // SHA-256 of the audio (BlobRef id), null for older uploads
 
     private String rawLyrics; // Full lyrics text (plain)
     private List<LyricLine> syncedLyrics; // Timed lyrics with timestamps
@@ -0,0 +1,22 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of a resumable upload that has been staged in storage.
+ * Contains the chunk position, its staged block ID, size and checksum.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadChunk {
+
+    private int index; // Zero-based chunk position
+    private String blockId; // Staged block ID in the target blob
+    private long size; // Bytes
+    private String sha256; // Hex checksum verified on receipt
+}
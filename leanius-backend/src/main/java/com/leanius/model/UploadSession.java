@@ -0,0 +1,74 @@
+package com.leanius.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UploadSession entity for uploads that are finalized in a separate step.
+ * Either the client writes the audio straight to a pre-named blob (direct upload), or it
+ * sends fixed-size chunks that are staged as blocks (resumable upload). The session keeps
+ * the song details and lyrics checked at creation until the upload is finalized.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "uploadSessions")
+public class UploadSession {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId; // Reference to User
+
+    private String title;
+    private String artist;
+    private String filename;
+    private String audioFormat; // mp3, wav, ogg, flac
+    private long declaredSize; // Bytes, as announced by the client
+
+    @Indexed
+    private String blobName; // Target blob in the audio container
+
+    /**
+     * Chunk size for resumable uploads; 0 for direct uploads.
+     * Every chunk except the last has exactly this size.
+     */
+    private int chunkSize;
+    private int totalChunks;
+
+    /**
+     * Received chunks keyed by index, so a retried chunk replaces its previous entry.
+     * Chunk data itself lives in storage as uncommitted blocks.
+     */
+    @Builder.Default
+    private Map<String, UploadChunk> chunks = new HashMap<>();
+
+    /**
+     * Set while one request is completing the upload, so a concurrent or retried completion
+     * cannot register the blob a second time.
+     */
+    private boolean completing;
+
+    // Lyrics fetched when the session was created
+    private String rawLyrics;
+    private List<LyricLine> syncedLyrics;
+    private String syncType;
+
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Indexed
+    private LocalDateTime expiresAt;
+}
@@ -38,6 +38,21 @@ public interface SongRepository extends MongoRepository<Song, String> {
     @Query(value = "{ 'userId': ?0, 'lyricsConfirmed': true }", sort = "{ 'updatedAt': -1 }")
     List<Song> findTopByUserIdOrderByUpdatedAtDesc(String userId, Pageable pageable);
 
+    /**
+     * Load only the fields that identify a song version (owner, confirmation, timestamps).
+     * Used to validate cached per-version data without fetching the lyrics.
+     */
+    @Query(value = "{ '_id': ?0, 'userId': ?1 }",
+            fields = "{ 'userId': 1, 'lyricsConfirmed': 1, 'createdAt': 1, 'updatedAt': 1 }")
+    Optional<Song> findVersionByIdAndUserId(String id, String userId);
+
+    /**
+     * Load only the fields needed to deliver a song's audio.
+     */
+    @Query(value = "{ '_id': ?0, 'userId': ?1 }",
+            fields = "{ 'userId': 1, 'lyricsConfirmed': 1, 'audioUrl': 1, 'blobName': 1, 'audioFormat': 1 }")
+    Optional<Song> findAudioByIdAndUserId(String id, String userId);
+
     /**
      * Check if any songs have been updated since a given time.
      */
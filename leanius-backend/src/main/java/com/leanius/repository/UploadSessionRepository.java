@@ -0,0 +1,21 @@
+package com.leanius.repository;
+
+import com.leanius.model.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for UploadSession entity operations.
+ */
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+
+    Optional<UploadSession> findByIdAndUserId(String id, String userId);
+
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime time, Pageable pageable);
+}
@@ -1,40 +1,48 @@
 package com.leanius.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.leanius.model.User;
 import com.leanius.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collections;
 
 /**
  * Custom UserDetailsService implementation for Spring Security.
  * Loads user details from MongoDB by user ID.
+ *
+ * Lookups by ID (every authenticated request) are cached. Changes to a user must call
+ * {@link #evict}; other instances evict it through CacheInvalidationBus. Changes made outside
+ * the application are picked up after {@code auth.user-cache.ttl}.
  */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, UserDetails> usersById;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${auth.user-cache.size:10000}") long cacheSize,
+                                    @Value("${auth.user-cache.ttl:PT5M}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
 
     @Override
     public UserDetails loadUserByUsername(String userId) throws UsernameNotFoundException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
-
-        return new org.springframework.security.core.userdetails.User(
-                user.getId(),
-                user.getPasswordHash(),
-                user.isActive(),
-                true,
-                true,
-                true,
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
-        );
+        // Unknown users are not cached; the exception passes through
+        return usersById.get(userId, id -> toUserDetails(userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id))));
     }
 
     /**
@@ -43,7 +51,24 @@ public class CustomUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByEmail(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        return toUserDetails(user);
+    }
+
+    /**
+     * Drop a cached user after its password, status or profile changed.
+     */
+    public void evict(String userId) {
+        usersById.invalidate(userId);
+    }
+
+    /**
+     * Drop all cached users, when changes may have been missed.
+     */
+    public void evictAll() {
+        usersById.invalidateAll();
+    }
 
+    private static UserDetails toUserDetails(User user) {
         return new org.springframework.security.core.userdetails.User(
                 user.getId(),
                 user.getPasswordHash(),
@@ -0,0 +1,34 @@
+package com.leanius.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Per-purpose HMAC keys for features that fall back to the JWT secret, so a signature made for
+ * one purpose (a download URL, an embed key) can never be replayed as another, or as a JWT.
+ *
+ * The key for a purpose is HMAC-SHA256(secret, purpose).
+ */
+public final class DerivedKeys {
+
+    private DerivedKeys() {
+    }
+
+    /**
+     * The configured key if set, otherwise a key derived from {@code secret} for {@code purpose}.
+     */
+    public static SecretKeySpec hmacKey(String configured, String secret, String purpose) {
+        if (configured != null && !configured.isBlank()) {
+            return new SecretKeySpec(configured.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return new SecretKeySpec(mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8)), "HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.leanius.security;
+
+import com.leanius.exception.InvalidApiKeyException;
+import com.leanius.service.ApiKeyService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * API key authentication for /embed/**, the only authentication in the embed filter chain.
+ * The key's owner is passed to the controller as the {@link #USER_ID} request attribute;
+ * invalid keys are answered with 401 by GlobalExceptionHandler. The check is observed as the
+ * "authenticate" embed.stage.
+ *
+ * Not a bean, so it is not registered as a servlet filter for every request.
+ */
+public class EmbedApiKeyFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID = "com.leanius.embed.userId";
+
+    private static final RequestMatcher EMBED_PATHS = new AntPathRequestMatcher("/embed/**");
+
+    private final ApiKeyService apiKeyService;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final ObservationRegistry observationRegistry;
+
+    public EmbedApiKeyFilter(ApiKeyService apiKeyService, HandlerExceptionResolver exceptionResolver,
+                             ObservationRegistry observationRegistry) {
+        this.apiKeyService = apiKeyService;
+        this.exceptionResolver = exceptionResolver;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !EMBED_PATHS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String userId;
+        try {
+            userId = Observation.createNotStarted("embed.stage", observationRegistry)
+                    .lowCardinalityKeyValue("stage", "authenticate")
+                    .contextualName("embed authenticate")
+                    .observe(() -> apiKeyService.validateApiKey(request.getParameter("key")));
+        } catch (InvalidApiKeyException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        request.setAttribute(USER_ID, userId);
+        filterChain.doFilter(request, response);
+    }
+}
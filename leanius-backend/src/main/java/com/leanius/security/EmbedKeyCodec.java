@@ -0,0 +1,108 @@
+package com.leanius.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Issues and verifies self-contained embed API keys.
+ *
+ * Format: {@code lk1.<userId>.<generation>.<signature>}, where the signature is a truncated
+ * HMAC-SHA256 of everything before it. Verifying a key needs no database lookup; revoked
+ * generations are checked separately (see {@link EmbedKeyRevocations}).
+ */
+@Component
+public class EmbedKeyCodec {
+
+    static final String PREFIX = "lk1.";
+
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final ThreadLocal<Mac> macs;
+
+    public EmbedKeyCodec(@Value("${embed.keys.secret:}") String secret,
+                         @Value("${jwt.secret}") String jwtSecret) {
+        SecretKeySpec key = DerivedKeys.hmacKey(secret, jwtSecret, "embed-key");
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+
+    /**
+     * Whether a key uses this format (as opposed to a legacy random key stored in the database).
+     */
+    public static boolean isSigned(String key) {
+        return key != null && key.startsWith(PREFIX);
+    }
+
+    public String issue(String userId, int generation) {
+        String payload = PREFIX + userId + "." + generation;
+        return payload + "." + sign(payload);
+    }
+
+    /**
+     * Verify a signed key; returns null if it is malformed or the signature does not match.
+     */
+    public SignedKey verify(String key) {
+        if (!isSigned(key) || key.length() > MAX_KEY_LENGTH) {
+            return null;
+        }
+        int signatureStart = key.lastIndexOf('.');
+        int generationStart = key.lastIndexOf('.', signatureStart - 1);
+        if (generationStart <= PREFIX.length()) {
+            return null;
+        }
+        String payload = key.substring(0, signatureStart);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = key.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        try {
+            int generation = Integer.parseInt(key, generationStart + 1, signatureStart, 10);
+            return new SignedKey(key.substring(PREFIX.length(), generationStart), generation);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String sign(String payload) {
+        byte[] mac = macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(mac, SIGNATURE_BYTES));
+    }
+
+    /**
+     * The owner and generation carried by a verified key.
+     */
+    public static class SignedKey {
+        private final String userId;
+        private final int generation;
+
+        public SignedKey(String userId, int generation) {
+            this.userId = userId;
+            this.generation = generation;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.leanius.security;
+
+import com.leanius.model.ApiKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory denylist of rotated embed key generations.
+ *
+ * Only users who rotated their key have an entry (their current generation); signed keys with a
+ * lower generation are revoked. Rotations on other instances arrive through CacheInvalidationBus,
+ * and at the latest by polling the {@code rotatedAt} index every {@code embed.keys.revocation-refresh}.
+ */
+@Slf4j
+@Component
+public class EmbedKeyRevocations {
+
+    // Tolerates clocks of other instances running behind this one
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, Integer> currentGenerations = new ConcurrentHashMap<>();
+    private volatile LocalDateTime refreshedAt;
+
+    public EmbedKeyRevocations(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean isRevoked(String userId, int generation) {
+        Integer current = currentGenerations.get(userId);
+        return current != null && generation < current;
+    }
+
+    /**
+     * Revoke all keys of a user older than {@code generation}.
+     */
+    public void revokeBefore(String userId, int generation) {
+        currentGenerations.merge(userId, generation, Math::max);
+    }
+
+    /**
+     * Load rotations: all of them on the first run, then those since the previous run.
+     */
+    @Scheduled(fixedDelayString = "${embed.keys.revocation-refresh:PT30S}")
+    public void refresh() {
+        LocalDateTime started = LocalDateTime.now();
+        Criteria rotated = refreshedAt == null
+                ? Criteria.where("rotatedAt").exists(true)
+                : Criteria.where("rotatedAt").gte(refreshedAt.minus(CLOCK_SKEW));
+        Query query = Query.query(rotated);
+        query.fields().include("userId").include("generation");
+        try {
+            for (ApiKey apiKey : mongoTemplate.find(query, ApiKey.class)) {
+                revokeBefore(apiKey.getUserId(), apiKey.getGeneration());
+            }
+            refreshedAt = started;
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh revoked embed keys", e);
+        }
+    }
+}
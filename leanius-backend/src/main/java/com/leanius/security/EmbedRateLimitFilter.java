@@ -0,0 +1,59 @@
+package com.leanius.security;
+
+import com.leanius.exception.RateLimitExceededException;
+import com.leanius.util.ClientIpResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Burst limits for /embed/**, ahead of EmbedApiKeyFilter so that floods of requests, valid
+ * keys or not, are rejected before any key lookup. Rejections are answered with 429 and
+ * Retry-After by GlobalExceptionHandler.
+ *
+ * Not a bean, so it is not registered as a servlet filter for every request.
+ */
+public class EmbedRateLimitFilter extends OncePerRequestFilter {
+
+    private static final RequestMatcher EMBED_PATHS = new AntPathRequestMatcher("/embed/**");
+
+    private final EmbedRateLimiter rateLimiter;
+    private final ClientIpResolver clientIpResolver;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public EmbedRateLimitFilter(EmbedRateLimiter rateLimiter, ClientIpResolver clientIpResolver,
+                                HandlerExceptionResolver exceptionResolver) {
+        this.rateLimiter = rateLimiter;
+        this.clientIpResolver = clientIpResolver;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !EMBED_PATHS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long wait = rateLimiter.tryAcquire(clientIpResolver.resolve(request), request.getParameter("key"));
+        if (wait > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+            exceptionResolver.resolveException(request, response, null,
+                    new RateLimitExceededException("Too many requests. Please slow down.", retryAfterSeconds));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,104 @@
+package com.leanius.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-second burst limits for embed requests, per client IP and per API key, checked before the
+ * key is validated. The daily limit is enforced separately by EmbedQuotaService.
+ *
+ * Each bucket holds up to {@code burst} requests and refills at {@code rate} per second. Buckets
+ * are kept in memory per instance, bounded in size, and dropped after {@code idle-evict} without
+ * requests; by then they are full again, so dropping them changes nothing.
+ *
+ * Metrics: {@code embed.ratelimit.rejected} (by=ip|key).
+ */
+@Component
+public class EmbedRateLimiter {
+
+    private final Cache<String, Bucket> bucketsByIp;
+    private final Cache<String, Bucket> bucketsByKey;
+    private final long ipInterval;
+    private final long ipTolerance;
+    private final long keyInterval;
+    private final long keyTolerance;
+
+    private final Counter rejectedByIp;
+    private final Counter rejectedByKey;
+
+    public EmbedRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${embed.rate-limit.per-ip.rate:20}") double ipRate,
+                            @Value("${embed.rate-limit.per-ip.burst:60}") int ipBurst,
+                            @Value("${embed.rate-limit.per-key.rate:10}") double keyRate,
+                            @Value("${embed.rate-limit.per-key.burst:50}") int keyBurst,
+                            @Value("${embed.rate-limit.idle-evict:PT1M}") Duration idleEvict,
+                            @Value("${embed.rate-limit.max-tracked:100000}") long maxTracked) {
+        this.bucketsByIp = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterAccess(idleEvict).build();
+        this.bucketsByKey = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterAccess(idleEvict).build();
+        this.ipInterval = (long) (1_000_000_000L / ipRate);
+        this.ipTolerance = ipInterval * (ipBurst - 1);
+        this.keyInterval = (long) (1_000_000_000L / keyRate);
+        this.keyTolerance = keyInterval * (keyBurst - 1);
+
+        this.rejectedByIp = Counter.builder("embed.ratelimit.rejected").tag("by", "ip")
+                .description("Embed requests rejected before key validation").register(meterRegistry);
+        this.rejectedByKey = Counter.builder("embed.ratelimit.rejected").tag("by", "key")
+                .description("Embed requests rejected before key validation").register(meterRegistry);
+    }
+
+    /**
+     * Take one request from the IP's bucket, then from the key's.
+     *
+     * @return 0 if allowed, otherwise nanoseconds until a request would be
+     */
+    public long tryAcquire(String clientIp, String key) {
+        long now = System.nanoTime();
+        if (clientIp != null) {
+            long wait = bucketsByIp.get(clientIp, ip -> new Bucket(now)).take(now, ipInterval, ipTolerance);
+            if (wait > 0) {
+                rejectedByIp.increment();
+                return wait;
+            }
+        }
+        if (key != null && !key.isBlank()) {
+            long wait = bucketsByKey.get(key, k -> new Bucket(now)).take(now, keyInterval, keyTolerance);
+            if (wait > 0) {
+                rejectedByKey.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A token bucket stored as the time at which it is full again; one compare-and-set per request.
+     */
+    private static final class Bucket {
+        private final AtomicLong fullAt;
+
+        Bucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        long take(long now, long interval, long tolerance) {
+            long current;
+            long next;
+            do {
+                current = fullAt.get();
+                long start = current - now > 0 ? current : now;
+                if (start - now > tolerance) {
+                    return start - now - tolerance;
+                }
+                next = start + interval;
+            } while (!fullAt.compareAndSet(current, next));
+            return 0;
+        }
+    }
+}
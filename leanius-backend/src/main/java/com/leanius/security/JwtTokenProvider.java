@@ -2,6 +2,7 @@ package com.leanius.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +18,7 @@ import java.util.function.Function;
 /**
  * JWT Token Provider for generating and validating JWT tokens.
  * Tokens do not expire (per requirement).
+ * The signing key and parser are built once; they are immutable and thread-safe.
  */
 @Slf4j
 @Component
@@ -28,6 +30,15 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     /**
      * Generate a JWT token for a user.
      */
@@ -53,7 +64,7 @@ public class JwtTokenProvider {
                 .issuedAt(new Date(System.currentTimeMillis()))
                 // No expiration - tokens never expire (as per requirement)
                 .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
@@ -87,19 +98,15 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
      * Check if a token is expired.
      * Note: Per requirement, tokens should not expire, but this is kept for safety.
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = extractExpiration(token);
+    private Boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
         return expiration.before(new Date());
     }
 
@@ -107,20 +114,23 @@ public class JwtTokenProvider {
      * Validate a token against a UserDetails object.
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String userId = extractUserId(token);
-        return (userId.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 
     /**
      * Validate a token (basic validation without UserDetails).
      */
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * Verify a token once and return its claims, or null if it is invalid.
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return extractAllClaims(token);
         } catch (MalformedJwtException ex) {
             log.error("Invalid JWT token");
         } catch (ExpiredJwtException ex) {
@@ -132,11 +142,6 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             log.error("JWT validation error: {}", ex.getMessage());
         }
-        return false;
-    }
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return null;
     }
 }
@@ -0,0 +1,111 @@
+package com.leanius.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leanius.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throttles password attempts before any hash is computed.
+ *
+ * Per client IP, all attempts count; per account, only failed ones, so a user is not locked out
+ * by their own successful logins. Password reset requests have budgets of their own, per IP and
+ * per account, so requesting resets for someone else's email cannot lock them out of logging in.
+ * Counters are fixed windows starting at the first attempt and are kept in memory per instance,
+ * bounded in size.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, AtomicInteger> attemptsByIp;
+    private final Cache<String, AtomicInteger> failuresByAccount;
+    private final Cache<String, AtomicInteger> resetsByIp;
+    private final Cache<String, AtomicInteger> resetsByAccount;
+    private final int maxAttemptsPerIp;
+    private final int maxFailuresPerAccount;
+    private final int maxResetsPerIp;
+    private final int maxResetsPerAccount;
+
+    private final Counter rejectedByIp;
+    private final Counter rejectedByAccount;
+    private final Counter resetsRejectedByIp;
+    private final Counter resetsRejectedByAccount;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${auth.throttle.window:PT5M}") Duration window,
+                         @Value("${auth.throttle.max-attempts-per-ip:30}") int maxAttemptsPerIp,
+                         @Value("${auth.throttle.max-failures-per-account:5}") int maxFailuresPerAccount,
+                         @Value("${auth.throttle.max-resets-per-ip:10}") int maxResetsPerIp,
+                         @Value("${auth.throttle.max-resets-per-account:3}") int maxResetsPerAccount,
+                         @Value("${auth.throttle.max-tracked:100000}") long maxTracked) {
+        this.attemptsByIp = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(window).build();
+        this.failuresByAccount = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(window).build();
+        this.resetsByIp = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(window).build();
+        this.resetsByAccount = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(window).build();
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        this.maxFailuresPerAccount = maxFailuresPerAccount;
+        this.maxResetsPerIp = maxResetsPerIp;
+        this.maxResetsPerAccount = maxResetsPerAccount;
+
+        this.rejectedByIp = Counter.builder("auth.throttle.rejected").tag("by", "ip")
+                .description("Password attempts rejected before hashing").register(meterRegistry);
+        this.rejectedByAccount = Counter.builder("auth.throttle.rejected").tag("by", "account")
+                .description("Password attempts rejected before hashing").register(meterRegistry);
+        this.resetsRejectedByIp = Counter.builder("auth.throttle.rejected").tag("by", "reset-ip")
+                .description("Password attempts rejected before hashing").register(meterRegistry);
+        this.resetsRejectedByAccount = Counter.builder("auth.throttle.rejected").tag("by", "reset-account")
+                .description("Password attempts rejected before hashing").register(meterRegistry);
+    }
+
+    /**
+     * Count an attempt and reject it if the IP or the account is over its limit.
+     */
+    public void acquire(String clientIp, String account) {
+        if (clientIp != null
+                && attemptsByIp.get(clientIp, ip -> new AtomicInteger()).incrementAndGet() > maxAttemptsPerIp) {
+            rejectedByIp.increment();
+            log.warn("Password attempts throttled for IP {}", clientIp);
+            throw new RateLimitExceededException("Too many attempts. Please try again later.");
+        }
+        AtomicInteger failures = account != null ? failuresByAccount.getIfPresent(account) : null;
+        if (failures != null && failures.get() >= maxFailuresPerAccount) {
+            rejectedByAccount.increment();
+            log.warn("Password attempts throttled for account {}", account);
+            throw new RateLimitExceededException("Too many failed attempts. Please try again later.");
+        }
+    }
+
+    /**
+     * Count a password reset request and reject it if the IP or the account is over its reset
+     * limit. Login attempts and failures are not affected.
+     */
+    public void acquireReset(String clientIp, String account) {
+        if (clientIp != null
+                && resetsByIp.get(clientIp, ip -> new AtomicInteger()).incrementAndGet() > maxResetsPerIp) {
+            resetsRejectedByIp.increment();
+            log.warn("Password reset requests throttled for IP {}", clientIp);
+            throw new RateLimitExceededException("Too many reset requests. Please try again later.");
+        }
+        if (resetsByAccount.get(account, key -> new AtomicInteger()).incrementAndGet() > maxResetsPerAccount) {
+            resetsRejectedByAccount.increment();
+            log.warn("Password reset requests throttled for account {}", account);
+            throw new RateLimitExceededException("Too many reset requests. Please try again later.");
+        }
+    }
+
+    public void recordFailure(String account) {
+        failuresByAccount.get(account, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void recordSuccess(String account) {
+        failuresByAccount.invalidate(account);
+    }
+}
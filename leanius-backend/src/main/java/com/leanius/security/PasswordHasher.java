@@ -0,0 +1,112 @@
+package com.leanius.security;
+
+import com.leanius.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on the bounded {@code passwordHashExecutor}, so a burst of logins
+ * uses at most {@code auth.hashing.threads} cores instead of one per request thread.
+ * When the queue is full, or a hash waits longer than {@code auth.hashing.timeout},
+ * the request is rejected with {@link ServiceBusyException} instead of piling up.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final String BUSY_MESSAGE = "Too many sign-in requests. Please try again shortly.";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration timeout;
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                          MeterRegistry meterRegistry,
+                          @Value("${auth.hashing.timeout:PT5S}") Duration timeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.timeout = timeout;
+
+        this.encodeTimer = Timer.builder("auth.hashing.duration").tag("op", "encode")
+                .description("CPU time of one password hash").register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.hashing.duration").tag("op", "matches")
+                .description("CPU time of one password hash").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.hashing.queue.wait")
+                .description("Time a hash waited for a hashing thread").register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Hashes rejected because the hashing pool was saturated").register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.depth", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Hashes waiting for a hashing thread").register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Hashes being computed").register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String passwordHash) {
+        return run(matchTimer, () -> passwordEncoder.matches(rawPassword, passwordHash));
+    }
+
+    /**
+     * Whether a stored hash uses a lower cost than configured and should be re-encoded.
+     */
+    public boolean needsUpgrade(String passwordHash) {
+        return passwordEncoder.upgradeEncoding(passwordHash);
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.record(hash);
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE, 1);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejected.increment();
+            log.warn("Password hash did not complete within {}", timeout);
+            throw new ServiceBusyException(BUSY_MESSAGE, 1);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(BUSY_MESSAGE, 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -1,34 +1,76 @@
 package com.leanius.service;
 
+import com.leanius.exception.InvalidApiKeyException;
+import com.leanius.exception.ResourceNotFoundException;
 import com.leanius.model.ApiKey;
+import com.leanius.model.User;
 import com.leanius.repository.ApiKeyRepository;
-import com.leanius.exception.InvalidApiKeyException;
-import lombok.RequiredArgsConstructor;
+import com.leanius.repository.UserRepository;
+import com.leanius.security.EmbedKeyCodec;
+import com.leanius.security.EmbedKeyRevocations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Base64;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for API key management.
+ *
+ * Keys are signed and name their user, so validating them is CPU work only. Keys issued
+ * before that (random strings) are still resolved through the apiKeys collection until
+ * their owner rotates.
+ *
+ * Daily request limits are enforced by EmbedQuotaService.
+ *
+ * Metrics: {@code apikey.validate} (kind=signed|legacy) and {@code apikey.rejected}
+ * (reason=malformed|revoked|unknown).
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ApiKeyService {
 
     private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final EmbedKeyCodec keyCodec;
+    private final EmbedKeyRevocations revocations;
+
+    private final Timer signedValidations;
+    private final Timer legacyValidations;
+    private final Counter rejectedMalformed;
+    private final Counter rejectedRevoked;
+    private final Counter rejectedUnknown;
+
+    public ApiKeyService(ApiKeyRepository apiKeyRepository,
+                         UserRepository userRepository,
+                         EmbedKeyCodec keyCodec,
+                         EmbedKeyRevocations revocations,
+                         MeterRegistry meterRegistry) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.userRepository = userRepository;
+        this.keyCodec = keyCodec;
+        this.revocations = revocations;
+
+        this.signedValidations = Timer.builder("apikey.validate").tag("kind", "signed")
+                .description("API key validations").register(meterRegistry);
+        this.legacyValidations = Timer.builder("apikey.validate").tag("kind", "legacy")
+                .description("API key validations").register(meterRegistry);
+        this.rejectedMalformed = Counter.builder("apikey.rejected").tag("reason", "malformed")
+                .description("Rejected API keys").register(meterRegistry);
+        this.rejectedRevoked = Counter.builder("apikey.rejected").tag("reason", "revoked")
+                .description("Rejected API keys").register(meterRegistry);
+        this.rejectedUnknown = Counter.builder("apikey.rejected").tag("reason", "unknown")
+                .description("Rejected API keys").register(meterRegistry);
+    }
 
     /**
-     * Generate a new unique API key.
+     * Issue the first API key of a new user.
      */
-    public String generateApiKey() {
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        String timestamp = Long.toHexString(System.currentTimeMillis());
-        String raw = uuid + timestamp;
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes()).substring(0, 32);
+    public String generateApiKey(String userId) {
+        return keyCodec.issue(userId, 1);
     }
 
     /**
@@ -38,8 +80,8 @@ public class ApiKeyService {
         ApiKey apiKey = ApiKey.builder()
                 .userId(userId)
                 .key(key)
+                .generation(1)
                 .createdAt(LocalDateTime.now())
-                .dailyRequestCount(0)
                 .build();
         apiKeyRepository.save(apiKey);
         log.info("API key created for user: {}", userId);
@@ -49,14 +91,60 @@ public class ApiKeyService {
      * Validate an API key and return the associated user ID.
      */
     public String validateApiKey(String key) {
-        ApiKey apiKey = apiKeyRepository.findByKey(key)
-                .orElseThrow(() -> new InvalidApiKeyException());
-        
-        // Update last used timestamp
-        apiKey.setLastUsed(LocalDateTime.now());
+        if (key == null || key.isBlank()) {
+            rejectedMalformed.increment();
+            throw new InvalidApiKeyException();
+        }
+        if (EmbedKeyCodec.isSigned(key)) {
+            long start = System.nanoTime();
+            EmbedKeyCodec.SignedKey signed = keyCodec.verify(key);
+            signedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (signed == null) {
+                rejectedMalformed.increment();
+                throw new InvalidApiKeyException();
+            }
+            if (revocations.isRevoked(signed.getUserId(), signed.getGeneration())) {
+                rejectedRevoked.increment();
+                throw new InvalidApiKeyException();
+            }
+            return signed.getUserId();
+        }
+
+        // Legacy random key
+        String userId = legacyValidations.record(() -> apiKeyRepository.findByKey(key)
+                .map(ApiKey::getUserId)
+                .orElse(null));
+        if (userId == null) {
+            rejectedUnknown.increment();
+            throw new InvalidApiKeyException();
+        }
+        return userId;
+    }
+
+    /**
+     * Replace a user's API key with a signed key of the next generation and revoke the old one.
+     * Other instances stop accepting the old key within {@code embed.keys.revocation-refresh}.
+     */
+    public String rotateApiKey(String userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        ApiKey apiKey = apiKeyRepository.findByUserId(userId)
+                .orElseGet(() -> ApiKey.builder().userId(userId).build());
+
+        int generation = apiKey.getGeneration() + 1;
+        String key = keyCodec.issue(userId, generation);
+        apiKey.setKey(key);
+        apiKey.setGeneration(generation);
+        apiKey.setRotatedAt(LocalDateTime.now());
         apiKeyRepository.save(apiKey);
-        
-        return apiKey.getUserId();
+        revocations.revokeBefore(userId, generation);
+
+        user.setApiKey(key);
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(user);
+
+        log.info("API key rotated for user: {} (generation {})", userId, generation);
+        return key;
     }
 
     /**
@@ -75,40 +163,4 @@ public class ApiKeyService {
                 .map(ApiKey::getKey)
                 .orElse(null);
     }
-
-    /**
-     * Increment daily request count (for rate limiting).
-     */
-    public void incrementDailyCount(String key) {
-        ApiKey apiKey = apiKeyRepository.findByKey(key)
-                .orElseThrow(() -> new InvalidApiKeyException());
-        
-        // Reset count if it's a new day
-        LocalDateTime now = LocalDateTime.now();
-        if (apiKey.getDailyCountResetAt() == null || 
-            apiKey.getDailyCountResetAt().toLocalDate().isBefore(now.toLocalDate())) {
-            apiKey.setDailyRequestCount(0);
-            apiKey.setDailyCountResetAt(now);
-        }
-        
-        apiKey.setDailyRequestCount(apiKey.getDailyRequestCount() + 1);
-        apiKeyRepository.save(apiKey);
-    }
-
-    /**
-     * Check if API key has exceeded daily rate limit.
-     */
-    public boolean isRateLimitExceeded(String key, int maxDailyRequests) {
-        ApiKey apiKey = apiKeyRepository.findByKey(key)
-                .orElseThrow(() -> new InvalidApiKeyException());
-        
-        // Reset count if it's a new day
-        LocalDateTime now = LocalDateTime.now();
-        if (apiKey.getDailyCountResetAt() == null || 
-            apiKey.getDailyCountResetAt().toLocalDate().isBefore(now.toLocalDate())) {
-            return false;
-        }
-        
-        return apiKey.getDailyRequestCount() >= maxDailyRequests;
-    }
 }
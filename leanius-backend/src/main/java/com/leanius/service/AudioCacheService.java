@@ -0,0 +1,270 @@
+package com.leanius.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.leanius.exception.StorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded local disk cache of audio blobs, used to serve audio without signed storage URLs.
+ *
+ * Entries are keyed by the SHA-256 of their blob name; each download gets its own file,
+ * {@code <key>.<uuid>}, so removing an entry deletes only its own file and never a later download
+ * of the same blob. Blobs are never rewritten (unique or content-addressed names), so cached files
+ * never go stale. Concurrent misses for the same blob share one download. Files of a previous run
+ * are re-indexed at startup; partial downloads are removed.
+ */
+@Slf4j
+@Service
+public class AudioCacheService {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final StorageBackend storageBackend;
+    private final Path cacheDir;
+    private final Cache<String, CachedAudio> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<CachedAudio>> fills = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer fillTimer;
+
+    public AudioCacheService(StorageBackend storageBackend,
+                             MeterRegistry meterRegistry,
+                             @Value("${audio.cache.dir:${java.io.tmpdir}/leanius-audio-cache}") String cacheDir,
+                             @Value("${audio.cache.max-size:2GB}") DataSize maxSize) throws IOException {
+        this.storageBackend = storageBackend;
+        this.cacheDir = Files.createDirectories(Path.of(cacheDir));
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedAudio audio) -> (int) Math.min(Integer.MAX_VALUE, audio.getSize()))
+                .removalListener((String key, CachedAudio audio, RemovalCause cause) -> {
+                    // Runs asynchronously, possibly after the blob was downloaded again; that
+                    // download has its own file, so this one can always go
+                    if (audio != null) {
+                        deleteQuietly(audio.getPath());
+                    }
+                })
+                .build();
+
+        this.hits = Counter.builder("audio.cache.hits").description("Audio requests served from the disk cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("audio.cache.misses").description("Audio requests that needed a download")
+                .register(meterRegistry);
+        this.fillTimer = Timer.builder("audio.cache.fill").description("Time to download a blob into the cache")
+                .register(meterRegistry);
+        Gauge.builder("audio.cache.size", entries,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes").description("Bytes held in the audio disk cache").register(meterRegistry);
+        Gauge.builder("audio.cache.max.size", maxSize, DataSize::toBytes)
+                .baseUnit("bytes").description("Configured audio disk cache limit").register(meterRegistry);
+        Gauge.builder("audio.cache.hit.ratio", this, AudioCacheService::hitRatio)
+                .description("Share of audio requests served from the disk cache").register(meterRegistry);
+
+        indexExistingFiles();
+        log.info("Audio cache at {} (max {})", this.cacheDir, maxSize);
+    }
+
+    /**
+     * Open a blob from the cache, downloading it on a miss. The file is opened before it is
+     * returned, so an eviction meanwhile cannot make it disappear under the caller; a file
+     * that was evicted between the lookup and the open counts as a miss. Close the result.
+     */
+    public OpenAudio open(String blobName) {
+        String key = keyOf(blobName);
+        CachedAudio cached = entries.getIfPresent(key);
+        if (cached != null) {
+            FileChannel channel = openChannel(cached);
+            if (channel != null) {
+                hits.increment();
+                return new OpenAudio(cached, channel);
+            }
+            entries.asMap().remove(key, cached);
+        }
+        misses.increment();
+
+        CachedAudio audio = fill(key, blobName);
+        FileChannel channel = openChannel(audio);
+        if (channel == null) {
+            throw new StorageException("Cached audio was evicted before it could be read: " + blobName);
+        }
+        return new OpenAudio(audio, channel);
+    }
+
+    private CachedAudio fill(String key, String blobName) {
+        // Coalesce concurrent misses: only the first caller downloads, the others wait for it
+        CompletableFuture<CachedAudio> fill = new CompletableFuture<>();
+        CompletableFuture<CachedAudio> existing = fills.putIfAbsent(key, fill);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+
+        try {
+            CachedAudio downloaded = fillTimer.record(() -> download(key, blobName));
+            // Keep a copy cached meanwhile: replacing it would delete a file a reader may be opening
+            CachedAudio audio = entries.asMap().putIfAbsent(key, downloaded);
+            if (audio == null) {
+                audio = downloaded;
+            } else {
+                deleteQuietly(downloaded.getPath());
+            }
+            fill.complete(audio);
+            return audio;
+        } catch (RuntimeException e) {
+            fill.completeExceptionally(e);
+            throw e;
+        } finally {
+            fills.remove(key, fill);
+        }
+    }
+
+    /**
+     * @return the open file, or null if it no longer exists
+     */
+    private static FileChannel openChannel(CachedAudio audio) {
+        try {
+            return FileChannel.open(audio.getPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new StorageException("Failed to read cached audio: " + audio.getPath(), e);
+        }
+    }
+
+    private CachedAudio download(String key, String blobName) {
+        Path target = cacheDir.resolve(key + "." + UUID.randomUUID());
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+        try {
+            storageBackend.downloadToFile(blobName, part);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(target);
+            log.debug("Cached audio blob {} ({} bytes)", blobName, size);
+            return new CachedAudio(target, size, key);
+        } catch (IOException e) {
+            throw new StorageException("Failed to cache audio: " + blobName, e);
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    private void indexExistingFiles() throws IOException {
+        int indexed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(PART_SUFFIX)) {
+                    deleteQuietly(file);
+                } else if (Files.isRegularFile(file)) {
+                    // <key>.<uuid>; a duplicate of a key replaces the other, which is then deleted
+                    String name = file.getFileName().toString();
+                    String key = name.contains(".") ? name.substring(0, name.indexOf('.')) : name;
+                    entries.put(key, new CachedAudio(file, Files.size(file), key));
+                    indexed++;
+                }
+            }
+        }
+        if (indexed > 0) {
+            log.info("Re-indexed {} cached audio files", indexed);
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0;
+    }
+
+    private static String keyOf(String blobName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(blobName.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Still open on a platform that forbids deleting open files; re-indexed on restart
+            log.debug("Could not delete cached file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A cached audio file. {@code etag} identifies the content and never changes for a blob.
+     */
+    public static class CachedAudio {
+        private final Path path;
+        private final long size;
+        private final String etag;
+
+        public CachedAudio(Path path, long size, String etag) {
+            this.path = path;
+            this.size = size;
+            this.etag = etag;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * A cached audio file opened for reading. Stays readable after eviction until closed.
+     */
+    public static class OpenAudio extends CachedAudio implements Closeable {
+        private final FileChannel channel;
+
+        OpenAudio(CachedAudio audio, FileChannel channel) {
+            super(audio.getPath(), audio.getSize(), audio.getEtag());
+            this.channel = channel;
+        }
+
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.leanius.service;
+
+import com.leanius.exception.InvalidFileException;
+import com.leanius.model.BlobRef;
+import com.leanius.model.Song;
+import com.leanius.util.AudioProbe;
+import com.mongodb.client.result.DeleteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Content-addressed audio storage on top of the configured StorageBackend.
+ *
+ * Audio is identified by its SHA-256, computed while the upload streams. Each distinct
+ * content is stored once; the {@code blobRefs} collection maps the hash to its blob and
+ * counts the songs using it. Identical uploads reuse the existing blob, and a blob is only
+ * deleted when its last song goes away.
+ *
+ * Blobs are named {@code sha256/<first 2 hex>/<hash>.<ext>} when the hash is known before
+ * uploading (multipart uploads, or a client-declared hash). Otherwise the blob keeps its
+ * per-user upload name and is registered under its hash once the stream has been read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioStorageService {
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final int PROBE_READ_SIZE = 64 * 1024;
+    private static final int MAX_PROBE_READS = 4;
+
+    private final StorageBackend storageBackend;
+    private final MongoTemplate mongoTemplate;
+    private final JobQueueService jobQueueService;
+
+    /**
+     * Hash a multipart upload (already on local disk), feeding the bytes to a probe on the way.
+     */
+    public String hashFile(MultipartFile file, AudioProbe probe) {
+        try (InputStream inputStream = probe.tee(file.getInputStream())) {
+            return sha256Hex(inputStream);
+        } catch (IOException e) {
+            log.error("Failed to read uploaded file", e);
+            throw new InvalidFileException("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Store a multipart upload whose hash was computed with {@link #hashFile}.
+     * Known content is not uploaded at all.
+     */
+    public StoredAudio storeFile(MultipartFile file, String sha256, long maxBytes) {
+        String existing = tryAcquire(sha256);
+        if (existing != null) {
+            log.info("Upload matched existing content {}", existing);
+            return stored(existing, file.getSize(), sha256);
+        }
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return upload(inputStream, contentBlobName(sha256, file.getOriginalFilename()), maxBytes, true,
+                    verifying(sha256));
+        } catch (IOException e) {
+            log.error("Failed to upload file to storage", e);
+            throw new InvalidFileException("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Store a streamed upload, hashing it on the way.
+     *
+     * @param declaredSha256 hex SHA-256 announced by the client, or null. When given, known
+     *                       content is only read and verified instead of being uploaded again.
+     */
+    public StoredAudio storeStream(InputStream inputStream, String filename, String userId,
+                                   long maxBytes, String declaredSha256) {
+        if (declaredSha256 == null || declaredSha256.isBlank()) {
+            return upload(inputStream, storageBackend.newBlobName(userId, filename), maxBytes, true,
+                    this::tryAcquire);
+        }
+        if (!declaredSha256.matches("[0-9a-fA-F]{64}")) {
+            throw new InvalidFileException("Content checksum must be a hex SHA-256");
+        }
+
+        String sha256 = declaredSha256.toLowerCase();
+        boolean known = mongoTemplate.exists(liveRef(sha256), BlobRef.class);
+        return upload(inputStream, contentBlobName(sha256, filename), maxBytes, !known, verifying(sha256));
+    }
+
+    /**
+     * Probe a stored blob's audio headers with range reads: the head of the file (following
+     * skipped regions such as large ID3 tags) and, for Ogg, the tail.
+     */
+    public AudioProbe.AudioInfo probeBlob(String blobName, long size, String format) {
+        AudioProbe probe = new AudioProbe(format);
+        long offset = 0;
+        for (int reads = 0; reads < MAX_PROBE_READS && !probe.isHeaderComplete() && offset < size; reads++) {
+            probe.skipTo(offset);
+            byte[] data = storageBackend.readRange(blobName, offset, (int) Math.min(PROBE_READ_SIZE, size - offset));
+            probe.update(data, 0, data.length);
+            offset = probe.nextOffset();
+        }
+        if (probe.needsTail() && probe.nextOffset() < size) {
+            long tailStart = Math.max(probe.nextOffset(), size - PROBE_READ_SIZE);
+            probe.skipTo(tailStart);
+            byte[] data = storageBackend.readRange(blobName, tailStart, (int) (size - tailStart));
+            probe.update(data, 0, data.length);
+        }
+        return probe.finish(size);
+    }
+
+    /**
+     * Release a song's audio. The blob is deleted once no other song uses the same content.
+     * Songs stored before content addressing own their blob and delete it directly.
+     * Deletion runs in the background job queue, outside the caller's request.
+     */
+    public void release(Song song) {
+        if (song.getContentHash() == null) {
+            jobQueueService.deleteBlobLater(song.getBlobName() != null
+                    ? song.getBlobName() : storageBackend.blobNameOf(song.getAudioUrl()), null);
+            return;
+        }
+        release(song.getContentHash(), "song " + song.getId());
+    }
+
+    /**
+     * Release stored audio whose song was never created (e.g., saving it failed).
+     */
+    public void release(StoredAudio audio) {
+        if (audio.getContentHash() == null) {
+            jobQueueService.deleteBlobLater(audio.getBlobName(), null);
+            return;
+        }
+        release(audio.getContentHash(), "upload " + audio.getBlobName());
+    }
+
+    private void release(String contentHash, String owner) {
+        BlobRef ref = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(contentHash)),
+                new Update().inc("refCount", -1).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                BlobRef.class);
+        if (ref == null) {
+            log.warn("No blob reference for {} (content {})", owner, contentHash);
+            return;
+        }
+        if (ref.getRefCount() > 0) {
+            log.info("Released content {} ({} references left)", ref.getId(), ref.getRefCount());
+            return;
+        }
+
+        // Only the caller that removes the reference deletes the blob; a concurrent upload
+        // that re-acquired the content in between keeps the reference alive
+        DeleteResult removed = mongoTemplate.remove(
+                Query.query(Criteria.where("_id").is(ref.getId()).and("refCount").lte(0)), BlobRef.class);
+        if (removed.getDeletedCount() == 1) {
+            jobQueueService.deleteBlobLater(ref.getBlobName(), ref.getEtag());
+        }
+    }
+
+    private StoredAudio upload(InputStream inputStream, String blobName, long maxBytes, boolean stageBlocks,
+                               Function<String, String> reuseExisting) {
+        StorageBackend.UploadResult result = storageBackend.uploadStream(
+                inputStream, blobName, maxBytes, stageBlocks, reuseExisting);
+        if (!result.isCommitted()) {
+            return stored(result.getBlobName(), result.getSize(), result.getSha256());
+        }
+
+        BlobRef ref = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(result.getSha256())),
+                new Update()
+                        .inc("refCount", 1)
+                        .set("updatedAt", LocalDateTime.now())
+                        .setOnInsert("blobName", result.getBlobName())
+                        .setOnInsert("size", result.getSize())
+                        .setOnInsert("etag", result.getEtag())
+                        .setOnInsert("createdAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                BlobRef.class);
+
+        if (ref != null && !ref.getBlobName().equals(result.getBlobName())) {
+            // Same content was registered concurrently under another name; keep that one
+            jobQueueService.deleteBlobLater(result.getBlobName(), result.getEtag());
+            return stored(ref.getBlobName(), result.getSize(), result.getSha256());
+        }
+        return stored(result.getBlobName(), result.getSize(), result.getSha256());
+    }
+
+    /**
+     * Reuse callback that first checks the content against the expected hash.
+     */
+    private Function<String, String> verifying(String expectedSha256) {
+        return sha256 -> {
+            if (!sha256.equalsIgnoreCase(expectedSha256)) {
+                throw new InvalidFileException("File content does not match its checksum");
+            }
+            return tryAcquire(sha256);
+        };
+    }
+
+    /**
+     * Take a reference on existing content.
+     *
+     * @return the blob holding the content, or null if it is not stored
+     */
+    private String tryAcquire(String sha256) {
+        BlobRef ref = mongoTemplate.findAndModify(
+                liveRef(sha256),
+                new Update().inc("refCount", 1).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                BlobRef.class);
+        return ref != null ? ref.getBlobName() : null;
+    }
+
+    private static Query liveRef(String sha256) {
+        return Query.query(Criteria.where("_id").is(sha256).and("refCount").gt(0));
+    }
+
+    private StoredAudio stored(String blobName, long size, String sha256) {
+        return new StoredAudio(blobName, storageBackend.generateReadUrl(blobName), size, sha256);
+    }
+
+    private static String contentBlobName(String sha256, String filename) {
+        String extension = "";
+        if (filename != null && filename.lastIndexOf('.') >= 0) {
+            extension = "." + filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+        }
+        return "sha256/" + sha256.substring(0, 2) + "/" + sha256 + extension;
+    }
+
+    private static String sha256Hex(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Stored audio: its blob, a signed URL for playback, its size and content hash.
+     */
+    public static class StoredAudio {
+        private final String blobName;
+        private final String audioUrl;
+        private final long size;
+        private final String contentHash;
+
+        public StoredAudio(String blobName, String audioUrl, long size, String contentHash) {
+            this.blobName = blobName;
+            this.audioUrl = audioUrl;
+            this.size = size;
+            this.contentHash = contentHash;
+        }
+
+        public String getBlobName() {
+            return blobName;
+        }
+
+        public String getAudioUrl() {
+            return audioUrl;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+    }
+}
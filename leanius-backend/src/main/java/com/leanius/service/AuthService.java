@@ -9,10 +9,13 @@ import com.leanius.exception.DuplicateEmailException;
 import com.leanius.exception.ResourceNotFoundException;
 import com.leanius.model.User;
 import com.leanius.repository.UserRepository;
+import com.leanius.security.CustomUserDetailsService;
 import com.leanius.security.JwtTokenProvider;
+import com.leanius.security.LoginThrottle;
+import com.leanius.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -27,27 +30,33 @@ import java.util.UUID;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
     private final JwtTokenProvider jwtTokenProvider;
     private final ApiKeyService apiKeyService;
+    private final CustomUserDetailsService userDetailsService;
 
     /**
      * Register a new user.
      */
-    public AuthResponse signup(SignupRequest request) {
+    public AuthResponse signup(SignupRequest request, String clientIp) {
+        loginThrottle.acquire(clientIp, null);
+
         // Check for duplicate email
         if (userRepository.existsByEmail(request.getEmail().toLowerCase())) {
             throw new DuplicateEmailException(request.getEmail());
         }
 
-        // Generate API key
-        String apiKey = apiKeyService.generateApiKey();
+        // The signed API key names the user, so the ID is assigned up front
+        String userId = new ObjectId().toHexString();
+        String apiKey = apiKeyService.generateApiKey(userId);
 
         // Create user
         User user = User.builder()
+                .id(userId)
                 .name(request.getName())
                 .email(request.getEmail().toLowerCase())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHasher.encode(request.getPassword()))
                 .apiKey(apiKey)
                 .createdAt(LocalDateTime.now())
                 .active(true)
@@ -74,18 +83,29 @@ public class AuthService {
     /**
      * Login an existing user.
      */
-    public AuthResponse login(LoginRequest request) {
-        User user = userRepository.findByEmail(request.getEmail().toLowerCase())
-                .orElseThrow(() -> new AuthenticationException("Invalid email or password"));
-
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        String email = request.getEmail().toLowerCase();
+        // Throttle before the lookup and the hash, so unknown emails are throttled too
+        loginThrottle.acquire(clientIp, email);
+
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null || !passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
+            loginThrottle.recordFailure(email);
             throw new AuthenticationException("Invalid email or password");
         }
+        loginThrottle.recordSuccess(email);
 
         if (!user.isActive()) {
             throw new AuthenticationException("Account is deactivated");
         }
 
+        if (passwordHasher.needsUpgrade(user.getPasswordHash())) {
+            // Configured cost was raised; re-hash while the plain password is at hand
+            user.setPasswordHash(passwordHasher.encode(request.getPassword()));
+            userRepository.save(user);
+            userDetailsService.evict(user.getId());
+        }
+
         log.info("User logged in: {}", user.getEmail());
 
         String token = jwtTokenProvider.generateToken(user.getId(), user.getEmail(), user.getName());
@@ -102,17 +122,22 @@ public class AuthService {
     /**
      * Change user password.
      */
-    public void changePassword(String userId, ChangePasswordRequest request) {
+    public void changePassword(String userId, ChangePasswordRequest request, String clientIp) {
+        loginThrottle.acquire(clientIp, userId);
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getCurrentPassword(), user.getPasswordHash())) {
+            loginThrottle.recordFailure(userId);
             throw new AuthenticationException("Current password is incorrect");
         }
+        loginThrottle.recordSuccess(userId);
 
-        user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
+        user.setPasswordHash(passwordHasher.encode(request.getNewPassword()));
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsService.evict(userId);
 
         log.info("Password changed for user: {}", user.getEmail());
     }
@@ -120,8 +145,12 @@ public class AuthService {
     /**
      * Initiate password reset (generates reset token).
      */
-    public void initiatePasswordReset(String email) {
-        User user = userRepository.findByEmail(email.toLowerCase())
+    public void initiatePasswordReset(String email, String clientIp) {
+        String account = email.toLowerCase();
+        // Reset requests have their own budget: they must not use up the account's login failures
+        loginThrottle.acquireReset(clientIp, account);
+
+        User user = userRepository.findByEmail(account)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
 
         String resetToken = UUID.randomUUID().toString();
@@ -136,7 +165,9 @@ public class AuthService {
     /**
      * Verify reset token is valid.
      */
-    public boolean verifyResetToken(String token) {
+    public boolean verifyResetToken(String token, String clientIp) {
+        // Guessing tokens is throttled per IP like passwords
+        loginThrottle.acquire(clientIp, null);
         return userRepository.findByResetToken(token)
                 .map(user -> user.getResetTokenExpiry() != null && 
                              user.getResetTokenExpiry().isAfter(LocalDateTime.now()))
@@ -146,7 +177,9 @@ public class AuthService {
     /**
      * Reset password using token.
      */
-    public void resetPassword(String token, String newPassword) {
+    public void resetPassword(String token, String newPassword, String clientIp) {
+        loginThrottle.acquire(clientIp, null);
+
         User user = userRepository.findByResetToken(token)
                 .orElseThrow(() -> new AuthenticationException("Invalid or expired reset token"));
 
@@ -154,11 +187,13 @@ public class AuthService {
             throw new AuthenticationException("Reset token has expired");
         }
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.setPasswordHash(passwordHasher.encode(newPassword));
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsService.evict(user.getId());
+        loginThrottle.recordSuccess(user.getEmail());
 
         log.info("Password reset completed for: {}", user.getEmail());
     }
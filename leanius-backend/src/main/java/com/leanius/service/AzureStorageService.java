@@ -1,29 +1,96 @@
 package com.leanius.service;
 
+import com.azure.core.exception.UnexpectedLengthException;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.ClientOptions;
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.batch.BlobBatchClientBuilder;
+import com.azure.storage.blob.batch.BlobBatchStorageException;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.models.DeleteSnapshotsOptionType;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlobDownloadToFileOptions;
+import com.azure.storage.blob.options.BlobInputStreamOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.options.BlockBlobSimpleUploadOptions;
 import com.azure.storage.blob.sas.BlobSasPermission;
 import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
+import com.azure.storage.blob.specialized.BlockBlobAsyncClient;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.azure.storage.common.ParallelTransferOptions;
+import com.azure.storage.common.Utility;
+import com.azure.storage.common.policy.RequestRetryOptions;
 import com.leanius.exception.InvalidFileException;
+import com.leanius.exception.ResourceNotFoundException;
 import com.leanius.exception.StorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for Azure Blob Storage operations.
+ *
+ * All clients share one HTTP connection pool ({@code azureHttpClient}). Block staging and
+ * ranged downloads run on the async client, so parallel transfers do not park a thread per
+ * block; metadata calls use the sync client.
  */
 @Slf4j
 @Service
-public class AzureStorageService {
+@ConditionalOnProperty(name = "storage.backend", havingValue = "azure", matchIfMissing = true)
+public class AzureStorageService implements StorageBackend {
 
     @Value("${azure.storage.connection-string}")
     private String connectionString;
@@ -31,24 +98,114 @@ public class AzureStorageService {
     @Value("${azure.storage.container-name}")
     private String containerName;
 
+    // Uploads only create blobs; an existing blob is never overwritten
+    private static final BlobRequestConditions CREATE_ONLY = new BlobRequestConditions().setIfNoneMatch("*");
+
+    // Blob Batch limit per request
+    private static final int MAX_BATCH_SIZE = 256;
+
+    // Values of the operation tag of storage.requests
+    private static final List<String> OPERATIONS = List.of(
+            "stage", "commit", "head", "read", "download", "delete", "delete_batch", "sas");
+
+    // Overwrite the target of a download
+    private static final Set<OpenOption> OVERWRITE = Set.of(StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
     private BlobContainerClient containerClient;
+    private BlobContainerAsyncClient containerAsyncClient;
     private BlobServiceClient blobServiceClient;
+    private BlobBatchClient blobBatchClient;
+    // Set once the first URL that could not be signed was logged
+    private final AtomicBoolean unsignedUrlWarned = new AtomicBoolean();
+    // Completes once the container has been checked (and created if missing); a failed check is redone on use
+    private volatile CompletableFuture<Void> containerChecked = CompletableFuture.completedFuture(null);
+
+    private final HttpClient httpClient;
+    private final RequestRetryOptions retryOptions;
+    private final ClientOptions clientOptions;
+    private final int blockSize;
+    private final int uploadParallelism;
+    private final ParallelTransferOptions downloadTransferOptions;
+
+    private final Timer streamUploadTimer;
+    private final Timer failedUploadTimer;
+    private final Counter stagedBlocks;
+    private final DistributionSummary uploadedBytes;
+    private final Map<String, Timer> requestTimers = new HashMap<>();
+    private final Map<String, Timer> failedRequestTimers = new HashMap<>();
+
+    public AzureStorageService(HttpClient azureHttpClient,
+                               RequestRetryOptions azureRetryOptions,
+                               ClientOptions azureClientOptions,
+                               MeterRegistry meterRegistry,
+                               @Value("${azure.storage.upload.block-size:4MB}") DataSize blockSize,
+                               @Value("${azure.storage.upload.parallelism:4}") int uploadParallelism,
+                               @Value("${azure.storage.download.block-size:4MB}") DataSize downloadBlockSize,
+                               @Value("${azure.storage.download.parallelism:4}") int downloadParallelism) {
+        this.httpClient = azureHttpClient;
+        this.retryOptions = azureRetryOptions;
+        this.clientOptions = azureClientOptions;
+        this.blockSize = (int) blockSize.toBytes();
+        this.uploadParallelism = Math.max(1, uploadParallelism);
+        this.downloadTransferOptions = new ParallelTransferOptions()
+                .setBlockSizeLong(downloadBlockSize.toBytes())
+                .setMaxConcurrency(Math.max(1, downloadParallelism));
+
+        Gauge.builder("storage.upload.block.size", this, service -> service.blockSize)
+                .baseUnit("bytes")
+                .description("Configured block size for staged uploads")
+                .register(meterRegistry);
+        Gauge.builder("storage.upload.parallelism", this, service -> service.uploadParallelism)
+                .description("Configured number of in-flight blocks per upload")
+                .register(meterRegistry);
+        this.streamUploadTimer = Timer.builder("storage.upload.stream").tag("outcome", "success")
+                .description("Time to stream and commit an upload")
+                .register(meterRegistry);
+        this.failedUploadTimer = Timer.builder("storage.upload.stream").tag("outcome", "error")
+                .description("Time to stream and commit an upload")
+                .register(meterRegistry);
+        this.stagedBlocks = Counter.builder("storage.upload.blocks")
+                .description("Blocks staged to Azure")
+                .register(meterRegistry);
+        this.uploadedBytes = DistributionSummary.builder("storage.upload.bytes")
+                .baseUnit("bytes")
+                .description("Size of uploaded files")
+                .register(meterRegistry);
+        for (String operation : OPERATIONS) {
+            requestTimers.put(operation, Timer.builder("storage.requests")
+                    .tags("operation", operation, "outcome", "success")
+                    .description("Azure Blob Storage calls (SAS generation is local)")
+                    .register(meterRegistry));
+            failedRequestTimers.put(operation, Timer.builder("storage.requests")
+                    .tags("operation", operation, "outcome", "error")
+                    .description("Azure Blob Storage calls (SAS generation is local)")
+                    .register(meterRegistry));
+        }
+    }
 
     @PostConstruct
     public void init() {
         if (connectionString != null && !connectionString.isEmpty() && 
             !connectionString.equals("UseDevelopmentStorage=true")) {
             try {
-                blobServiceClient = new BlobServiceClientBuilder()
+                BlobServiceClientBuilder builder = new BlobServiceClientBuilder()
                         .connectionString(connectionString)
-                        .buildClient();
+                        .httpClient(httpClient)
+                        .retryOptions(retryOptions)
+                        .clientOptions(clientOptions);
+                blobServiceClient = builder.buildClient();
+                blobBatchClient = new BlobBatchClientBuilder(blobServiceClient).buildClient();
                 
                 // Initialize audio container
                 containerClient = blobServiceClient.getBlobContainerClient(containerName);
-                if (!containerClient.exists()) {
-                    containerClient.create();
-                    log.info("Created Azure blob container: {}", containerName);
-                }
+                containerAsyncClient = builder.buildAsyncClient().getBlobContainerAsyncClient(containerName);
+                // The only network call of startup: runs in the background, first use waits for it
+                containerChecked = CompletableFuture.runAsync(this::ensureContainer, runnable -> {
+                    Thread thread = new Thread(runnable, "storage-container-check");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
                 log.info("Azure Storage initialized with container: {}", containerName);
                 
             } catch (Exception e) {
@@ -59,34 +216,496 @@ public class AzureStorageService {
         }
     }
 
+    private void ensureContainer() {
+        try {
+            if (!containerClient.exists()) {
+                containerClient.create();
+                log.info("Created Azure blob container: {}", containerName);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Azure Storage container {} unavailable: {}", containerName, e.getMessage());
+            throw e;
+        }
+    }
+
     /**
-     * Upload a file to Azure Blob Storage and return a SAS URL.
+     * Stream an upload into a block blob, computing its SHA-256 on the way.
+     *
+     * The stream is read one block at a time and blocks are staged in parallel on the async
+     * client; at most {@code parallelism} blocks are held in memory. Streams that fit in a single block are
+     * uploaded with one Put Blob call. Staged blocks of a failed upload are discarded by Azure.
      */
-    public String uploadFile(MultipartFile file, String userId) {
-        if (containerClient == null) {
-            throw new InvalidFileException("Storage service is not available");
+    @Override
+    public UploadResult uploadStream(InputStream inputStream, String blobName, long maxBytes,
+                                     boolean stageBlocks, Function<String, String> reuseExisting) {
+        BlockBlobClient blockClient = requireContainer().getBlobClient(blobName).getBlockBlobClient();
+        BlockBlobAsyncClient blockAsyncClient = containerAsyncClient.getBlobAsyncClient(blobName).getBlockBlobAsyncClient();
+
+        Timer.Sample sample = Timer.start();
+        UploadResult result;
+        try {
+            result = stageAndCommit(blockClient, blockAsyncClient, blobName, inputStream, maxBytes,
+                    stageBlocks, reuseExisting);
+        } catch (RuntimeException e) {
+            sample.stop(failedUploadTimer);
+            throw e;
+        }
+        sample.stop(streamUploadTimer);
+        uploadedBytes.record(result.getSize());
+
+        if (result.isCommitted()) {
+            log.info("File uploaded to Azure: {} ({} bytes)", blobName, result.getSize());
+        } else {
+            log.info("Upload matched existing content: {} ({} bytes)", result.getBlobName(), result.getSize());
         }
+        return result;
+    }
+
+    private UploadResult stageAndCommit(BlockBlobClient blockClient, BlockBlobAsyncClient blockAsyncClient,
+                                        String blobName, InputStream inputStream, long maxBytes,
+                                        boolean stageBlocks, Function<String, String> reuseExisting) {
+        MessageDigest digest = sha256();
+        Semaphore inFlight = new Semaphore(uploadParallelism);
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(uploadParallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<String> blockIds = new ArrayList<>();
+        long total = 0;
+        boolean staged = false;
 
         try {
-            String originalFilename = file.getOriginalFilename();
-            String extension = getFileExtension(originalFilename);
-            String blobName = String.format("%s/%s_%s.%s",
-                    userId,
-                    System.currentTimeMillis(),
-                    UUID.randomUUID().toString().substring(0, 8),
-                    extension);
-
-            BlobClient blobClient = containerClient.getBlobClient(blobName);
-            blobClient.upload(file.getInputStream(), file.getSize(), true);
-
-            // Generate SAS URL for the uploaded blob
-            String sasUrl = generateSasUrl(blobClient);
-            log.info("File uploaded to Azure with SAS URL: {}", blobName);
-            return sasUrl;
+            while (failure.get() == null) {
+                inFlight.acquire();
+                byte[] buffer = buffers.poll();
+                if (buffer == null) {
+                    buffer = new byte[blockSize];
+                }
+
+                int length = readFully(inputStream, buffer);
+                total += length;
+                if (total > maxBytes) {
+                    throw new InvalidFileException("File size exceeds the maximum allowed limit of "
+                            + DataSize.ofBytes(maxBytes).toMegabytes() + "MB");
+                }
+                if (total == 0) {
+                    throw new InvalidFileException("File is required");
+                }
+                digest.update(buffer, 0, length);
+                boolean endOfStream = length < buffer.length;
+
+                if (blockIds.isEmpty() && endOfStream) {
+                    // Small file: a single Put Blob instead of stage + commit
+                    staged = true;
+                    String sha256 = HexFormat.of().formatHex(digest.digest());
+                    String existing = reuseExisting.apply(sha256);
+                    if (existing != null) {
+                        return new UploadResult(existing, total, sha256, null, false);
+                    }
+                    if (!stageBlocks) {
+                        throw new StorageException("Existing content is no longer available. Please retry the upload.");
+                    }
+                    try {
+                        BlockBlobItem item = blockClient.uploadWithResponse(
+                                new BlockBlobSimpleUploadOptions(new ByteArrayInputStream(buffer, 0, length), length)
+                                        .setRequestConditions(CREATE_ONLY), null, Context.NONE).getValue();
+                        return new UploadResult(blobName, total, sha256, item.getETag(), true);
+                    } catch (BlobStorageException e) {
+                        return onCommitConflict(e, blobName, total, sha256, reuseExisting);
+                    }
+                }
+                if (length == 0 || !stageBlocks) {
+                    buffers.offer(buffer);
+                    inFlight.release();
+                    if (endOfStream) {
+                        break;
+                    }
+                    blockIds.add(blockId(blockIds.size()));
+                    continue;
+                }
+
+                String blockId = blockId(blockIds.size());
+                blockIds.add(blockId);
+                byte[] block = buffer;
+                CompletableFuture<Void> staging = blockAsyncClient
+                        .stageBlock(blockId, BinaryData.fromByteBuffer(ByteBuffer.wrap(block, 0, length)))
+                        .toFuture();
+                staging.whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        failure.compareAndSet(null, error);
+                    } else {
+                        stagedBlocks.increment();
+                    }
+                    buffers.offer(block);
+                    inFlight.release();
+                });
+                pending.add(staging);
+
+                if (endOfStream) {
+                    break;
+                }
+            }
+
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+            staged = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Upload interrupted", e);
         } catch (IOException e) {
-            log.error("Failed to upload file to Azure", e);
+            log.error("Failed to read upload stream", e);
             throw new InvalidFileException("Failed to upload file: " + e.getMessage());
+        } catch (CompletionException e) {
+            throw new StorageException("Failed to stage upload block", e.getCause());
+        } finally {
+            if (!staged) {
+                // Stop blocks that have not started yet; uncommitted blocks are discarded by Azure
+                pending.forEach(future -> future.cancel(false));
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new StorageException("Failed to stage upload block", failure.get());
+        }
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String existing = reuseExisting.apply(sha256);
+        if (existing != null) {
+            // Identical content is already stored; the staged blocks are never committed
+            return new UploadResult(existing, total, sha256, null, false);
+        }
+        if (!stageBlocks) {
+            throw new StorageException("Existing content is no longer available. Please retry the upload.");
+        }
+
+        try {
+            BlockBlobItem item = blockClient.commitBlockListWithResponse(
+                    new BlockBlobCommitBlockListOptions(blockIds).setRequestConditions(CREATE_ONLY),
+                    null, Context.NONE).getValue();
+            return new UploadResult(blobName, total, sha256, item.getETag(), true);
+        } catch (BlobStorageException e) {
+            return onCommitConflict(e, blobName, total, sha256, reuseExisting);
+        }
+    }
+
+    /**
+     * Blobs are never overwritten. If the target already exists (same content stored
+     * concurrently under its content address), use the registered content instead. Content
+     * released but not deleted yet has no registration; its blob is returned to be registered again.
+     */
+    private UploadResult onCommitConflict(BlobStorageException e, String blobName, long size, String sha256,
+                                          Function<String, String> reuseExisting) {
+        if (e.getStatusCode() != 409 && e.getStatusCode() != 412) {
+            throw new StorageException("Failed to commit upload", e);
+        }
+        String existing = reuseExisting.apply(sha256);
+        if (existing != null) {
+            return new UploadResult(existing, size, sha256, null, false);
+        }
+        BlobInfo released = head(blobName);
+        if (released == null || released.getSize() != size) {
+            throw new StorageException("Upload conflicted with a blob being deleted: " + blobName, e);
+        }
+        log.info("Upload re-registered existing blob: {} ({} bytes)", blobName, size);
+        return new UploadResult(blobName, size, sha256, released.getEtag(), true);
+    }
+
+    /**
+     * Stage one chunk of a resumable upload as an uncommitted block of the target blob.
+     * The data is streamed to Azure without buffering; restaging an index replaces the block.
+     *
+     * @return the block ID of the chunk
+     */
+    @Override
+    public String stageChunk(String blobName, int index, InputStream data, long length) {
+        String blockId = blockId(index);
+        BlockBlobClient blockClient = requireContainer().getBlobClient(blobName).getBlockBlobClient();
+        timed("stage", () -> {
+            try {
+                blockClient.stageBlock(blockId, data, length);
+            } catch (UnexpectedLengthException e) {
+                throw new InvalidFileException("Chunk is shorter or longer than announced");
+            } catch (BlobStorageException e) {
+                throw new StorageException("Failed to stage upload block", e);
+            }
+            return null;
+        });
+        stagedBlocks.increment();
+        return blockId;
+    }
+
+    /**
+     * Commit the staged blocks of a resumable upload in order, making the blob visible.
+     */
+    @Override
+    public void commitChunks(String blobName, List<String> blockIds) {
+        BlockBlobClient blockClient = requireContainer().getBlobClient(blobName).getBlockBlobClient();
+        timed("commit", () -> {
+            try {
+                return blockClient.commitBlockList(blockIds, true);
+            } catch (BlobStorageException e) {
+                throw new StorageException("Failed to commit upload blocks", e);
+            }
+        });
+    }
+
+    /**
+     * Read until the buffer is full or the stream ends.
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = inputStream.read(buffer, offset, buffer.length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset;
+    }
+
+    /**
+     * Block IDs must be Base64 and of equal length within a blob.
+     */
+    private static String blockId(int index) {
+        return Base64.getEncoder().encodeToString(String.format("%08d", index).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Generate a create-only SAS URL for a single blob, used for uploads from the client.
+     * The token cannot read, list, delete or overwrite: once the blob exists (and has been
+     * verified), its content can no longer change. It is scoped to this blob name only.
+     */
+    @Override
+    public String generateUploadUrl(String blobName, OffsetDateTime expiryTime) {
+        BlobClient blobClient = requireContainer().getBlobClient(blobName);
+        BlobSasPermission permission = new BlobSasPermission().setCreatePermission(true);
+
+        BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(expiryTime, permission);
+        return blobClient.getBlobUrl() + "?" + timed("sas", () -> blobClient.generateSas(sasValues));
+    }
+
+    /**
+     * Azure requires the blob type on Put Blob.
+     */
+    @Override
+    public Map<String, String> getUploadHeaders(String contentType) {
+        return Map.of(
+                "x-ms-blob-type", "BlockBlob",
+                "Content-Type", contentType != null ? contentType : "application/octet-stream");
+    }
+
+    /**
+     * Generate a read SAS URL for a blob by name.
+     */
+    @Override
+    public String generateReadUrl(String blobName) {
+        return generateSasUrl(requireContainer().getBlobClient(blobName));
+    }
+
+    /**
+     * List the container one service page at a time; the next page is fetched on demand.
+     */
+    @Override
+    public void listBlobs(int pageSize, Consumer<List<ListedBlob>> pageConsumer) {
+        ListBlobsOptions options = new ListBlobsOptions().setMaxResultsPerPage(pageSize);
+        for (PagedResponse<BlobItem> page : requireContainer().listBlobs(options, null).iterableByPage()) {
+            List<ListedBlob> blobs = new ArrayList<>(page.getValue().size());
+            for (BlobItem item : page.getValue()) {
+                blobs.add(new ListedBlob(item.getName(), item.getProperties().getContentLength(),
+                        item.getProperties().getETag(), item.getProperties().getLastModified().toInstant()));
+            }
+            pageConsumer.accept(blobs);
+        }
+    }
+
+    @Override
+    public BlobInfo head(String blobName) {
+        BlobClient blobClient = requireContainer().getBlobClient(blobName);
+        return timed("head", () -> {
+            try {
+                BlobProperties properties = blobClient.getProperties();
+                return new BlobInfo(properties.getBlobSize(), properties.getETag());
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 404) {
+                    return null;
+                }
+                throw new StorageException("Failed to read blob properties: " + blobName, e);
+            }
+        });
+    }
+
+    /**
+     * Read a byte range of a blob (e.g., its headers).
+     */
+    @Override
+    public byte[] readRange(String blobName, long offset, int length) {
+        BlobInputStreamOptions options = new BlobInputStreamOptions()
+                .setRange(new BlobRange(offset, (long) length))
+                .setBlockSize(length);
+        BlobClient blobClient = requireContainer().getBlobClient(blobName);
+        return timed("read", () -> {
+            try (InputStream inputStream = blobClient.openInputStream(options)) {
+                return inputStream.readNBytes(length);
+            } catch (IOException | BlobStorageException e) {
+                throw new StorageException("Failed to read blob: " + blobName, e);
+            }
+        });
+    }
+
+    /**
+     * Download in {@code azure.storage.download.block-size} ranges, {@code parallelism} at a time.
+     */
+    @Override
+    public void downloadToFile(String blobName, Path target) {
+        requireContainer();
+        timed("download", () -> {
+            try {
+                return containerAsyncClient.getBlobAsyncClient(blobName)
+                        .downloadToFileWithResponse(new BlobDownloadToFileOptions(target.toString())
+                                .setParallelTransferOptions(downloadTransferOptions)
+                                .setOpenOptions(OVERWRITE))
+                        .block();
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 404) {
+                    throw new ResourceNotFoundException("Audio", "blob", blobName);
+                }
+                throw new StorageException("Failed to download blob: " + blobName, e);
+            } catch (UncheckedIOException e) {
+                throw new StorageException("Failed to download blob: " + blobName, e);
+            }
+        });
+    }
+
+    @Override
+    public String blobNameOf(String blobUrl) {
+        return blobUrl != null ? extractBlobNameFromUrl(blobUrl) : null;
+    }
+
+    /**
+     * Delete a blob by name if it exists. Uncommitted blocks are garbage-collected by Azure.
+     */
+    @Override
+    public void delete(String blobName) {
+        BlobClient blobClient = requireContainer().getBlobClient(blobName);
+        if (timed("delete", blobClient::deleteIfExists)) {
+            log.info("File deleted from Azure: {}", blobName);
+        }
+    }
+
+    @Override
+    public boolean deleteIfMatch(String blobName, String etag) {
+        if (etag == null) {
+            delete(blobName);
+            return true;
+        }
+        BlobClient blobClient = requireContainer().getBlobClient(blobName);
+        boolean deleted = timed("delete", () -> {
+            try {
+                blobClient.deleteWithResponse(null, new BlobRequestConditions().setIfMatch(etag), null, Context.NONE);
+                return true;
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 404 || e.getStatusCode() == 412) {
+                    return false;
+                }
+                throw new StorageException("Failed to delete blob: " + blobName, e);
+            }
+        });
+        if (deleted) {
+            log.info("File deleted from Azure: {}", blobName);
+        } else {
+            log.info("Skipped deleting {}: blob missing or rewritten", blobName);
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete blobs with Blob Batch requests (up to 256 deletes per round trip).
+     */
+    @Override
+    public int deleteAll(Collection<String> blobNames) {
+        if (blobNames.isEmpty()) {
+            return 0;
         }
+        if (blobBatchClient == null) {
+            throw new InvalidFileException("Storage service is not available");
+        }
+        String containerUrl = requireContainer().getBlobContainerUrl();
+        List<String> urls = blobNames.stream()
+                .map(name -> containerUrl + "/" + Utility.urlEncode(name))
+                .toList();
+
+        int deleted = 0;
+        for (int from = 0; from < urls.size(); from += MAX_BATCH_SIZE) {
+            List<String> batch = urls.subList(from, Math.min(from + MAX_BATCH_SIZE, urls.size()));
+            deleted += timed("delete_batch", () -> {
+                try {
+                    blobBatchClient.deleteBlobs(batch, DeleteSnapshotsOptionType.INCLUDE).forEach(response -> { });
+                    return batch.size();
+                } catch (BlobBatchStorageException e) {
+                    // Missing blobs fail individually; count the rest
+                    int missing = 0;
+                    for (BlobStorageException failure : e.getBatchExceptions()) {
+                        if (failure.getStatusCode() != 404) {
+                            throw new StorageException("Failed to delete blobs", failure);
+                        }
+                        missing++;
+                    }
+                    return batch.size() - missing;
+                }
+            });
+        }
+        log.info("Deleted {} blobs from Azure in batches", deleted);
+        return deleted;
+    }
+
+    /**
+     * Run a storage call, recording it in storage.requests by operation and outcome.
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            requestTimers.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            failedRequestTimers.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private BlobContainerClient requireContainer() {
+        if (containerClient == null) {
+            throw new InvalidFileException("Storage service is not available");
+        }
+        CompletableFuture<Void> checked = containerChecked;
+        try {
+            checked.join();
+        } catch (CompletionException e) {
+            recheckContainer(checked);
+        }
+        return containerClient;
+    }
+
+    /**
+     * Redo a failed container check on the calling thread. Until one succeeds, every use checks again.
+     */
+    private synchronized void recheckContainer(CompletableFuture<Void> failed) {
+        if (containerChecked != failed) {
+            return;
+        }
+        try {
+            ensureContainer();
+        } catch (RuntimeException e) {
+            throw new StorageException("Storage container is not available", e);
+        }
+        containerChecked = CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -100,62 +719,51 @@ public class AzureStorageService {
         
         BlobServiceSasSignatureValues sasValues = new BlobServiceSasSignatureValues(expiryTime, permission);
         
-        String sasToken = blobClient.generateSas(sasValues);
+        String sasToken = timed("sas", () -> blobClient.generateSas(sasValues));
         return blobClient.getBlobUrl() + "?" + sasToken;
     }
 
     /**
      * Generate a SAS URL from an existing blob URL.
      */
-    public String generateSasUrlFromBlobUrl(String blobUrl) {
+    @Override
+    public String refreshReadUrl(String blobUrl) {
         if (blobUrl == null || blobUrl.isEmpty()) {
-            log.debug("generateSasUrlFromBlobUrl: URL is null or empty");
             return blobUrl;
         }
 
-        log.debug("generateSasUrlFromBlobUrl: Processing URL: {}", blobUrl);
-
         try {
             // Strip existing SAS token if present
             String cleanUrl = blobUrl.split("\\?")[0];
-            log.debug("generateSasUrlFromBlobUrl: Clean URL (without SAS): {}", cleanUrl);
-            
+
             // Check if it's an audio URL (from audio container)
-            if (cleanUrl.contains("/" + containerName + "/")) {
-                log.debug("generateSasUrlFromBlobUrl: Detected AUDIO container");
-                if (containerClient == null) {
-                    log.warn("Audio container client not initialized");
-                    return blobUrl;
-                }
+            if (containerClient != null && cleanUrl.contains("/" + containerName + "/")) {
                 String blobName = extractBlobNameFromUrl(cleanUrl);
-                log.debug("generateSasUrlFromBlobUrl: Extracted audio blob name: {}", blobName);
                 if (blobName != null) {
-                    BlobClient blobClient = containerClient.getBlobClient(blobName);
-                    boolean exists = blobClient.exists();
-                    log.debug("generateSasUrlFromBlobUrl: Audio blob exists: {}", exists);
-                    if (exists) {
-                        String sasUrl = generateSasUrl(blobClient);
-                        log.info("generateSasUrlFromBlobUrl: Generated SAS URL for audio");
-                        return sasUrl;
-                    } else {
-                        log.warn("generateSasUrlFromBlobUrl: Audio blob does NOT exist: {}", blobName);
-                    }
+                    // Signing is local; a missing blob fails on read, with or without a SAS
+                    return generateSasUrl(containerClient.getBlobClient(blobName));
                 }
-            } else {
-                log.warn("generateSasUrlFromBlobUrl: URL does not match any known container. containerName={}", 
-                        containerName);
             }
         } catch (Exception e) {
-            log.error("Failed to generate SAS URL for: {}", blobUrl, e);
+            // Runs per song on song listings: WARN so the log sampler can drop a flood of these
+            log.warn("Failed to generate SAS URL for {}: {}", blobUrl, e.getMessage());
+            log.debug("SAS generation failure", e);
+            return blobUrl;
+        }
+        if (unsignedUrlWarned.compareAndSet(false, true)) {
+            log.warn("No SAS generated for {} (container {}, client initialized: {}); "
+                    + "further URLs without SAS are logged at DEBUG", blobUrl, containerName, containerClient != null);
+        } else {
+            log.debug("No SAS generated for {}", blobUrl);
         }
-        log.warn("generateSasUrlFromBlobUrl: Returning original URL (no SAS generated)");
         return blobUrl;
     }
 
     /**
      * Delete a file from Azure Blob Storage.
      */
-    public void deleteFile(String blobUrl) {
+    @Override
+    public void deleteByUrl(String blobUrl) {
         if (containerClient == null || blobUrl == null) {
             return;
         }
@@ -164,12 +772,8 @@ public class AzureStorageService {
             // Extract blob name from URL (remove any query params like SAS token)
             String cleanUrl = blobUrl.split("\\?")[0];
             String blobName = extractBlobNameFromUrl(cleanUrl);
-            if (blobName != null) {
-                BlobClient blobClient = containerClient.getBlobClient(blobName);
-                if (blobClient.exists()) {
-                    blobClient.delete();
-                    log.info("File deleted from Azure: {}", blobName);
-                }
+            if (blobName != null && timed("delete", containerClient.getBlobClient(blobName)::deleteIfExists)) {
+                log.info("File deleted from Azure: {}", blobName);
             }
         } catch (Exception e) {
             log.error("Failed to delete file from Azure: {}", blobUrl, e);
@@ -180,30 +784,18 @@ public class AzureStorageService {
      * Extract blob name from Azure URL.
      */
     private String extractBlobNameFromUrl(String blobUrl) {
-        // URL format: https://{account}.blob.core.windows.net/{container}/{blobName}
+        // URL format: https://{account}.blob.core.windows.net/{container}/{blobName}[?{sas}]
         try {
+            String path = blobUrl.split("\\?")[0];
             String containerPath = "/" + containerName + "/";
-            int index = blobUrl.indexOf(containerPath);
+            int index = path.indexOf(containerPath);
             if (index >= 0) {
-                return blobUrl.substring(index + containerPath.length());
+                // Blob URLs are percent-encoded; blob names are not
+                return Utility.urlDecode(path.substring(index + containerPath.length()));
             }
         } catch (Exception e) {
             log.error("Failed to extract blob name from URL: {}", blobUrl);
         }
         return null;
     }
-
-    /**
-     * Get file extension from filename.
-     */
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.isEmpty()) {
-            return "";
-        }
-        int lastDotIndex = filename.lastIndexOf('.');
-        if (lastDotIndex == -1) {
-            return "";
-        }
-        return filename.substring(lastDotIndex + 1).toLowerCase();
-    }
 }
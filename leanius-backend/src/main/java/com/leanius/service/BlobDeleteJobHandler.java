@@ -0,0 +1,85 @@
+package com.leanius.service;
+
+import com.leanius.model.BackgroundJob;
+import com.leanius.model.BlobRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes blobs queued with {@link JobQueueService#deleteBlobLater}.
+ * Unconditional deletes are sent as one batch; deletes guarded by an ETag run one by one.
+ * If the batch fails, its blobs are deleted one by one so that only the failing ones are
+ * retried. Deleting a missing blob counts as success, so retries are harmless. Blobs registered
+ * again since the job was queued (same content uploaded again) are kept.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlobDeleteJobHandler implements JobHandler {
+
+    private final StorageBackend storageBackend;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String getType() {
+        return JobQueueService.DELETE_BLOB;
+    }
+
+    @Override
+    public Map<BackgroundJob, RuntimeException> handle(List<BackgroundJob> jobs) {
+        Set<String> live = liveBlobs(jobs);
+        Map<BackgroundJob, RuntimeException> failed = new LinkedHashMap<>();
+        List<BackgroundJob> unconditional = new ArrayList<>();
+        for (BackgroundJob job : jobs) {
+            String blobName = job.getPayload().get("blobName");
+            String etag = job.getPayload().get("etag");
+            if (live.contains(blobName)) {
+                log.info("Skipped deleting {}: content was stored again", blobName);
+            } else if (etag == null) {
+                unconditional.add(job);
+            } else {
+                try {
+                    storageBackend.deleteIfMatch(blobName, etag);
+                } catch (RuntimeException e) {
+                    failed.put(job, e);
+                }
+            }
+        }
+        if (!unconditional.isEmpty()) {
+            try {
+                storageBackend.deleteAll(unconditional.stream().map(job -> job.getPayload().get("blobName")).toList());
+            } catch (RuntimeException e) {
+                log.warn("Batch delete of {} blobs failed, deleting them one by one: {}",
+                        unconditional.size(), e.getMessage());
+                for (BackgroundJob job : unconditional) {
+                    try {
+                        storageBackend.deleteAll(List.of(job.getPayload().get("blobName")));
+                    } catch (RuntimeException single) {
+                        failed.put(job, single);
+                    }
+                }
+            }
+        }
+        return failed;
+    }
+
+    private Set<String> liveBlobs(List<BackgroundJob> jobs) {
+        List<String> blobNames = jobs.stream().map(job -> job.getPayload().get("blobName")).toList();
+        Query query = Query.query(Criteria.where("blobName").in(blobNames).and("refCount").gt(0));
+        query.fields().include("blobName");
+        return mongoTemplate.find(query, BlobRef.class).stream()
+                .map(BlobRef::getBlobName)
+                .collect(Collectors.toSet());
+    }
+}
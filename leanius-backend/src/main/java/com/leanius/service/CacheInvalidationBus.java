@@ -0,0 +1,288 @@
+package com.leanius.service;
+
+import com.leanius.model.Invalidation;
+import com.leanius.security.CustomUserDetailsService;
+import com.leanius.security.EmbedKeyRevocations;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.connection.ClusterType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts cached users, key revocations and lyric timelines when another instance changes them.
+ *
+ * On a replica set or sharded cluster, one change stream on the users, apiKeys and songs
+ * collections delivers each change within milliseconds; after a cursor error it resumes from the
+ * last token. Standalone Mongo has no change streams: there, saves and deletes of these
+ * collections are also written to the invalidations collection, which the other instances poll
+ * every {@code cache.invalidation.poll-interval}. Only repository saves and deletes (including
+ * {@code MongoTemplate.remove}) raise those events: updateFirst, updateMulti and findAndModify
+ * writes to these collections are not published in poll mode. Such writes must not change what
+ * the caches hold, or must rely on the caches' own expiry and version checks.
+ *
+ * The resume token is kept in memory only. A restarted instance starts with empty caches and
+ * follows the stream from the present; key rotations made while it was down are loaded by
+ * EmbedKeyRevocations' full refresh at startup, and any change a stream misses later (a token
+ * too old to resume) reaches revocations within {@code embed.keys.revocation-refresh} (30 s).
+ *
+ * Metrics: {@code cache.invalidation.lag} (source=change-stream|poll), from a change to its
+ * eviction on this instance.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus extends AbstractMongoEventListener<Object> implements SmartLifecycle {
+
+    private static final List<String> COLLECTIONS = List.of("users", "apiKeys", "songs");
+
+    // Tolerates invalidations written late or by instances whose clock runs behind this one
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    // Change stream errors after which resuming is impossible (ChangeStreamFatalError, ChangeStreamHistoryLost)
+    private static final List<Integer> UNRESUMABLE = List.of(280, 286);
+
+    private static final Set<ClusterType> CHANGE_STREAM_CLUSTERS = EnumSet.of(
+            ClusterType.REPLICA_SET, ClusterType.SHARDED, ClusterType.LOAD_BALANCED);
+
+    private static final int MAX_APPLIED = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoClient mongoClient;
+    private final CustomUserDetailsService userDetailsService;
+    private final EmbedKeyRevocations revocations;
+    private final LyricTimelineService lyricTimelineService;
+    private final Duration pollInterval;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Timer changeStreamLag;
+    private final Timer pollLag;
+
+    private volatile boolean running;
+    // Until the listener has seen a replica set, changes are also written for polling instances
+    private volatile boolean changeStreams;
+
+    // Listener thread only; not persisted, see the class comment
+    private BsonDocument resumeToken;
+    private LocalDateTime polledAt;
+    private final Map<String, Boolean> applied = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_APPLIED;
+        }
+    };
+
+    public CacheInvalidationBus(MongoTemplate mongoTemplate,
+                                MongoClient mongoClient,
+                                CustomUserDetailsService userDetailsService,
+                                EmbedKeyRevocations revocations,
+                                LyricTimelineService lyricTimelineService,
+                                MeterRegistry meterRegistry,
+                                @Value("${cache.invalidation.poll-interval:PT1S}") Duration pollInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoClient = mongoClient;
+        this.userDetailsService = userDetailsService;
+        this.revocations = revocations;
+        this.lyricTimelineService = lyricTimelineService;
+        this.pollInterval = pollInterval;
+
+        this.changeStreamLag = Timer.builder("cache.invalidation.lag").tag("source", "change-stream")
+                .description("Time from a change on any instance to its eviction here").register(meterRegistry);
+        this.pollLag = Timer.builder("cache.invalidation.lag").tag("source", "poll")
+                .description("Time from a change on any instance to its eviction here").register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread listener = new Thread(this::listen, "cache-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        publish(event.getCollectionName(), event.getDocument());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        // The document of a delete event is its query, {_id: ...} for repository deletes
+        publish(event.getCollectionName(), event.getDocument());
+    }
+
+    /**
+     * Record a change for polling instances.
+     */
+    private void publish(String collection, Document document) {
+        if (changeStreams || document == null || !COLLECTIONS.contains(collection) || document.get("_id") == null) {
+            return;
+        }
+        try {
+            mongoTemplate.insert(Invalidation.builder()
+                    .collection(collection)
+                    .documentId(document.get("_id").toString())
+                    .userId(document.getString("userId"))
+                    .generation(document.get("generation") instanceof Number number ? number.intValue() : 0)
+                    .instanceId(instanceId)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            // Other instances catch up through their cache TTLs and the revocation refresh
+            log.warn("Failed to publish invalidation of {} {}: {}", collection, document.get("_id"), e.getMessage());
+        }
+    }
+
+    private void listen() {
+        Boolean streams = null;
+        while (running) {
+            try {
+                if (streams == null) {
+                    streams = supportsChangeStreams();
+                    changeStreams = streams;
+                    log.info("Cache invalidation through {}", streams ? "change streams" : "the invalidations collection");
+                }
+                if (streams) {
+                    tail();
+                } else {
+                    poll();
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation listener failed: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    private boolean supportsChangeStreams() {
+        // The cluster type is known once a server has answered
+        mongoTemplate.getDb().runCommand(new Document("ping", 1));
+        return CHANGE_STREAM_CLUSTERS.contains(mongoClient.getClusterDescription().getType());
+    }
+
+    /**
+     * Follow the change stream until stopped, resuming after the last change seen.
+     */
+    private void tail() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLLECTIONS))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null && change.getNamespace() != null && change.getDocumentKey() != null) {
+                    Document document = change.getFullDocument();
+                    apply(change.getNamespace().getCollectionName(), idOf(change.getDocumentKey().get("_id")),
+                            document != null ? document.getString("userId") : null,
+                            document != null && document.get("generation") instanceof Number number ? number.intValue() : 0);
+                    long changedAt = change.getWallTime() != null
+                            ? change.getWallTime().getValue()
+                            : change.getClusterTime().getTime() * 1000L;
+                    changeStreamLag.record(Math.max(0, System.currentTimeMillis() - changedAt), TimeUnit.MILLISECONDS);
+                }
+                resumeToken = cursor.getResumeToken();
+            }
+        } catch (MongoException e) {
+            if (!UNRESUMABLE.contains(e.getCode())) {
+                throw e;
+            }
+            // Changes since the token are lost; cached users are the only entries without a version check or refresh
+            log.warn("Change stream cannot resume ({}), evicting all cached users", e.getMessage());
+            resumeToken = null;
+            userDetailsService.evictAll();
+        }
+    }
+
+    /**
+     * Apply the invalidations of other instances since the previous poll.
+     */
+    private void poll() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = polledAt != null ? polledAt : started;
+        Query query = Query.query(Criteria.where("createdAt").gte(since.minus(CLOCK_SKEW))
+                .and("instanceId").ne(instanceId));
+        for (Invalidation invalidation : mongoTemplate.find(query, Invalidation.class)) {
+            if (applied.put(invalidation.getId(), Boolean.TRUE) == null) {
+                apply(invalidation.getCollection(), invalidation.getDocumentId(),
+                        invalidation.getUserId(), invalidation.getGeneration());
+                pollLag.record(Math.max(0, Duration.between(invalidation.getCreatedAt(), LocalDateTime.now()).toMillis()),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        polledAt = started;
+    }
+
+    private void apply(String collection, String documentId, String userId, int generation) {
+        switch (collection) {
+            case "users" -> userDetailsService.evict(documentId);
+            case "songs" -> lyricTimelineService.evict(documentId);
+            case "apiKeys" -> {
+                if (userId != null && generation > 1) {
+                    revocations.revokeBefore(userId, generation);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.leanius.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.leanius.model.QuotaCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daily embed request limit per user, shared by all instances without a database call per request.
+ *
+ * The requests of a user and UTC day are counted in one quotaCounters document. An instance leases
+ * {@code block-size} requests from it with one atomic update and spends them in memory. The counter
+ * never hands out more than {@code daily-limit}, so the limit holds across instances. Leases idle
+ * for {@code idle-return} (including those of a past day) and all leases at shutdown give their
+ * unused requests back; until then, a key may be rejected on one instance while up to one block
+ * per other instance is left unspent.
+ *
+ * Metrics: {@code apikey.quota} (operation=lease|return) and {@code apikey.quota.rejected}.
+ */
+@Slf4j
+@Service
+public class EmbedQuotaService {
+
+    private final MongoTemplate mongoTemplate;
+    private final int dailyLimit;
+    private final int blockSize;
+    private final long exhaustedRecheckNanos;
+    private final Cache<String, Lease> leases;
+
+    private final Timer leaseTimer;
+    private final Timer returnTimer;
+    private final Counter rejected;
+
+    public EmbedQuotaService(MongoTemplate mongoTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${embed.quota.daily-limit:1000}") int dailyLimit,
+                             @Value("${embed.quota.block-size:50}") int blockSize,
+                             @Value("${embed.quota.idle-return:PT1M}") Duration idleReturn,
+                             @Value("${embed.quota.exhausted-recheck:PT10S}") Duration exhaustedRecheck) {
+        this.mongoTemplate = mongoTemplate;
+        this.dailyLimit = dailyLimit;
+        this.blockSize = blockSize;
+        this.exhaustedRecheckNanos = exhaustedRecheck.toNanos();
+        this.leases = Caffeine.newBuilder()
+                .expireAfterAccess(idleReturn)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((String counterId, Lease lease, RemovalCause cause) -> giveBack(lease))
+                .build();
+
+        this.leaseTimer = Timer.builder("apikey.quota").tag("operation", "lease")
+                .description("Quota blocks leased from and returned to the shared counter").register(meterRegistry);
+        this.returnTimer = Timer.builder("apikey.quota").tag("operation", "return")
+                .description("Quota blocks leased from and returned to the shared counter").register(meterRegistry);
+        this.rejected = Counter.builder("apikey.quota.rejected")
+                .description("Embed requests over the daily limit").register(meterRegistry);
+    }
+
+    /**
+     * Take one request of the user's quota for today.
+     *
+     * @return false if the daily limit is reached
+     */
+    public boolean tryAcquire(String userId) {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        String counterId = userId + ":" + day;
+        while (true) {
+            Lease lease = leases.get(counterId, id -> new Lease(id, userId, day));
+            if (lease.take()) {
+                return true;
+            }
+            synchronized (lease) {
+                if (lease.closed) {
+                    continue; // Given back meanwhile; take a new lease
+                }
+                if (lease.take()) {
+                    return true; // Refilled by another thread
+                }
+                if (lease.exhausted && System.nanoTime() - lease.exhaustedAt < exhaustedRecheckNanos) {
+                    rejected.increment();
+                    return false;
+                }
+                int granted = leaseTimer.record(() -> leaseBlock(lease));
+                if (granted == 0) {
+                    lease.exhausted = true;
+                    lease.exhaustedAt = System.nanoTime();
+                    rejected.increment();
+                    return false;
+                }
+                lease.exhausted = false;
+                lease.remaining.addAndGet(granted - 1); // One for this request
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back the unused requests of all leases, for other instances to spend.
+     */
+    @PreDestroy
+    public void returnAll() {
+        leases.asMap().values().forEach(this::giveBack);
+        leases.invalidateAll();
+    }
+
+    /**
+     * Add a block to the shared counter and keep what fits under the limit.
+     */
+    private int leaseBlock(Lease lease) {
+        Query counter = Query.query(Criteria.where("_id").is(lease.counterId));
+        QuotaCounter updated = mongoTemplate.findAndModify(
+                counter,
+                new Update()
+                        .inc("leased", blockSize)
+                        .setOnInsert("userId", lease.userId)
+                        .setOnInsert("expireAt", lease.day.plusDays(2).atStartOfDay()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                QuotaCounter.class);
+        int before = updated.getLeased() - blockSize;
+        int granted = Math.max(0, Math.min(blockSize, dailyLimit - before));
+        if (granted < blockSize) {
+            mongoTemplate.updateFirst(counter, new Update().inc("leased", granted - blockSize), QuotaCounter.class);
+        }
+        return granted;
+    }
+
+    private void giveBack(Lease lease) {
+        int unused;
+        synchronized (lease) {
+            lease.closed = true;
+            unused = lease.remaining.getAndSet(0);
+        }
+        if (unused == 0) {
+            return;
+        }
+        try {
+            returnTimer.record(() -> mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(lease.counterId)),
+                    new Update().inc("leased", -unused),
+                    QuotaCounter.class));
+        } catch (RuntimeException e) {
+            log.warn("Failed to return {} requests of quota {}: {}", unused, lease.counterId, e.getMessage());
+        }
+    }
+
+    /**
+     * Requests of a user's daily quota held by this instance. Spending is lock-free; refilling
+     * and giving back synchronize on the lease.
+     */
+    private static final class Lease {
+        final String counterId;
+        final String userId;
+        final LocalDate day;
+        final AtomicInteger remaining = new AtomicInteger();
+        boolean closed;
+        boolean exhausted;
+        long exhaustedAt;
+
+        Lease(String counterId, String userId, LocalDate day) {
+            this.counterId = counterId;
+            this.userId = userId;
+            this.day = day;
+        }
+
+        boolean take() {
+            int left;
+            do {
+                left = remaining.get();
+                if (left <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(left, left - 1));
+            return true;
+        }
+    }
+}
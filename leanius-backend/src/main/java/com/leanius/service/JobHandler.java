@@ -0,0 +1,26 @@
+package com.leanius.service;
+
+import com.leanius.model.BackgroundJob;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs background jobs of one type. Handlers receive the due jobs of their type in batches
+ * and must be idempotent: a job can run again after a crash or an expired lease.
+ */
+public interface JobHandler {
+
+    /**
+     * Job type handled, as stored in {@link BackgroundJob#getType()}.
+     */
+    String getType();
+
+    /**
+     * Run a batch of jobs. Only the returned jobs are rescheduled with backoff, each with its own
+     * error; the others are completed. Throwing reschedules the whole batch.
+     *
+     * @return the jobs that failed, with their errors
+     */
+    Map<BackgroundJob, RuntimeException> handle(List<BackgroundJob> jobs);
+}
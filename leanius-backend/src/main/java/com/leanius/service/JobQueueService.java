@@ -0,0 +1,214 @@
+package com.leanius.service;
+
+import com.leanius.model.BackgroundJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Durable job queue stored in the "jobs" collection.
+ *
+ * Workers lease due jobs with findAndModify, so each job runs on one worker at a time across
+ * all instances. A worker that dies leaves its lease to expire, after which the job is picked
+ * up again. Failed jobs are retried with exponential backoff, up to {@code jobs.retry.max-attempts}
+ * attempts; after that they are parked: kept with their last error, but never leased again.
+ */
+@Slf4j
+@Service
+public class JobQueueService {
+
+    public static final String DELETE_BLOB = "DELETE_BLOB";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration leaseDuration;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    // Wakes local workers when a job is enqueued on this instance
+    private final Semaphore wakeup = new Semaphore(0);
+
+    public JobQueueService(MongoTemplate mongoTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${jobs.lease:PT5M}") Duration leaseDuration,
+                           @Value("${jobs.retry.initial-backoff:PT10S}") Duration initialBackoff,
+                           @Value("${jobs.retry.max-backoff:PT1H}") Duration maxBackoff,
+                           @Value("${jobs.retry.max-attempts:20}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.leaseDuration = leaseDuration;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Add a job that is due immediately.
+     */
+    public BackgroundJob enqueue(String type, Map<String, String> payload) {
+        BackgroundJob job = mongoTemplate.insert(BackgroundJob.builder()
+                .type(type)
+                .payload(payload)
+                .runAt(LocalDateTime.now())
+                .build());
+        meterRegistry.counter("jobs.enqueued", "type", type).increment();
+        wakeup.release();
+        return job;
+    }
+
+    /**
+     * Delete a blob in the background; with an ETag, only if the blob was not rewritten since.
+     */
+    public void deleteBlobLater(String blobName, String etag) {
+        if (blobName == null) {
+            return;
+        }
+        Map<String, String> payload = new HashMap<>();
+        payload.put("blobName", blobName);
+        if (etag != null) {
+            payload.put("etag", etag);
+        }
+        enqueue(DELETE_BLOB, payload);
+    }
+
+    /**
+     * Lease up to {@code limit} due jobs, oldest first.
+     */
+    public List<BackgroundJob> lease(String workerId, int limit) {
+        List<BackgroundJob> leased = new ArrayList<>();
+        while (leased.size() < limit) {
+            LocalDateTime now = LocalDateTime.now();
+            Query due = Query.query(Criteria.where("runAt").lte(now)
+                            .orOperator(Criteria.where("leaseUntil").is(null), Criteria.where("leaseUntil").lt(now)))
+                    .with(Sort.by("runAt"));
+            BackgroundJob job = mongoTemplate.findAndModify(due,
+                    new Update()
+                            .set("leaseOwner", workerId)
+                            .set("leaseUntil", now.plus(leaseDuration))
+                            .inc("attempts", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    BackgroundJob.class);
+            if (job == null) {
+                break;
+            }
+            leased.add(job);
+        }
+        return leased;
+    }
+
+    /**
+     * Remove jobs that ran successfully. Jobs whose lease expired and was taken by another
+     * worker are left to it.
+     */
+    public void complete(List<BackgroundJob> jobs) {
+        Map<String, List<BackgroundJob>> byOwnerAndType = jobs.stream()
+                .collect(Collectors.groupingBy(job -> job.getLeaseOwner() + "/" + job.getType()));
+        for (List<BackgroundJob> group : byOwnerAndType.values()) {
+            BackgroundJob first = group.get(0);
+            List<String> ids = group.stream().map(BackgroundJob::getId).toList();
+            long removed = mongoTemplate.remove(
+                    Query.query(Criteria.where("_id").in(ids).and("leaseOwner").is(first.getLeaseOwner())),
+                    BackgroundJob.class).getDeletedCount();
+            meterRegistry.counter("jobs.completed", "type", first.getType()).increment(removed);
+            if (removed < group.size()) {
+                log.warn("{} of {} {} jobs were leased by another worker before they completed",
+                        group.size() - removed, group.size(), first.getType());
+            }
+        }
+    }
+
+    /**
+     * Release failed jobs and schedule their next attempt with exponential backoff,
+     * or park them once they have used up their attempts.
+     */
+    public void fail(List<BackgroundJob> jobs, Throwable error) {
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        for (BackgroundJob job : jobs) {
+            if (job.getAttempts() >= maxAttempts) {
+                park(job, message);
+                continue;
+            }
+            Duration backoff = backoff(job.getAttempts());
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(job.getId()).and("leaseOwner").is(job.getLeaseOwner())),
+                    new Update()
+                            .set("runAt", LocalDateTime.now().plus(backoff))
+                            .unset("leaseOwner")
+                            .unset("leaseUntil")
+                            .set("lastError", message),
+                    BackgroundJob.class);
+            meterRegistry.counter("jobs.failed", "type", job.getType()).increment();
+            log.warn("Job {} ({}) failed on attempt {}, retrying in {}: {}",
+                    job.getId(), job.getType(), job.getAttempts(), backoff, message);
+        }
+    }
+
+    /**
+     * Stop retrying a job. Without runAt it is never due again; it stays in the collection for
+     * inspection and is retried by setting runAt (and resetting attempts).
+     */
+    private void park(BackgroundJob job, String message) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(job.getId()).and("leaseOwner").is(job.getLeaseOwner())),
+                new Update()
+                        .unset("runAt")
+                        .unset("leaseOwner")
+                        .unset("leaseUntil")
+                        .set("parkedAt", LocalDateTime.now())
+                        .set("lastError", message),
+                BackgroundJob.class);
+        meterRegistry.counter("jobs.parked", "type", job.getType()).increment();
+        log.error("Job {} ({}) parked after {} failed attempts: {}",
+                job.getId(), job.getType(), job.getAttempts(), message);
+    }
+
+    /**
+     * Wait until a job is enqueued locally or the timeout passes.
+     */
+    public void awaitWork(Duration timeout) throws InterruptedException {
+        if (wakeup.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            wakeup.drainPermits();
+        }
+    }
+
+    /**
+     * Wake all waiting workers (e.g., on shutdown).
+     */
+    public void wakeAll(int workers) {
+        wakeup.release(workers);
+    }
+
+    /**
+     * initialBackoff * 2^(attempts - 1), capped at maxBackoff, with +-20% jitter.
+     */
+    private Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis() << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (capped * jitter));
+    }
+}
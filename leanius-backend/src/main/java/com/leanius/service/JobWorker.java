@@ -0,0 +1,133 @@
+package com.leanius.service;
+
+import com.leanius.model.BackgroundJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pool of worker loops processing the job queue. Each loop leases a batch of due jobs,
+ * hands each type's share to its {@link JobHandler} and then completes the jobs that ran and
+ * reschedules the ones that failed.
+ * Idle workers wait for a local enqueue or the poll interval (jobs from other instances).
+ */
+@Slf4j
+@Component
+public class JobWorker implements SmartLifecycle {
+
+    private final JobQueueService jobQueueService;
+    private final Map<String, JobHandler> handlers;
+    private final Executor jobExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean running;
+
+    public JobWorker(JobQueueService jobQueueService,
+                     List<JobHandler> handlers,
+                     @Qualifier("jobExecutor") Executor jobExecutor,
+                     MeterRegistry meterRegistry,
+                     @Value("${jobs.workers:2}") int workers,
+                     @Value("${jobs.batch-size:100}") int batchSize,
+                     @Value("${jobs.poll-interval:PT5S}") Duration pollInterval) {
+        this.jobQueueService = jobQueueService;
+        this.handlers = handlers.stream().collect(Collectors.toMap(JobHandler::getType, Function.identity()));
+        this.jobExecutor = jobExecutor;
+        this.meterRegistry = meterRegistry;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            String workerId = instanceId + "-" + i;
+            jobExecutor.execute(() -> runLoop(workerId));
+        }
+        log.info("Started {} job workers for {}", workers, handlers.keySet());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        jobQueueService.wakeAll(workers);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runLoop(String workerId) {
+        while (running) {
+            try {
+                if (processBatch(workerId) == 0) {
+                    jobQueueService.awaitWork(pollInterval);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Queue unavailable (e.g., Mongo down); try again later
+                log.warn("Job worker {} failed to poll: {}", workerId, e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * Lease and run one batch of jobs.
+     *
+     * @return the number of jobs leased
+     */
+    int processBatch(String workerId) {
+        List<BackgroundJob> jobs = jobQueueService.lease(workerId, batchSize);
+        Map<String, List<BackgroundJob>> byType = jobs.stream()
+                .collect(Collectors.groupingBy(BackgroundJob::getType, LinkedHashMap::new, Collectors.toList()));
+
+        byType.forEach((type, batch) -> {
+            JobHandler handler = handlers.get(type);
+            if (handler == null) {
+                jobQueueService.fail(batch, new IllegalStateException("No handler for job type " + type));
+                return;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                Map<BackgroundJob, RuntimeException> failed = handler.handle(batch);
+                jobQueueService.complete(batch.stream().filter(job -> !failed.containsKey(job)).toList());
+                failed.forEach((job, error) -> jobQueueService.fail(List.of(job), error));
+            } catch (RuntimeException e) {
+                jobQueueService.fail(batch, e);
+            } finally {
+                sample.stop(meterRegistry.timer("jobs.batch", "type", type));
+            }
+        });
+        return jobs.size();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
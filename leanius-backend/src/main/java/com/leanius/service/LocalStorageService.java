@@ -0,0 +1,541 @@
+package com.leanius.service;
+
+import com.leanius.exception.InvalidFileException;
+import com.leanius.exception.ResourceNotFoundException;
+import com.leanius.exception.StorageException;
+import com.leanius.exception.UnauthorizedException;
+import com.leanius.security.DerivedKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Blob storage on the local filesystem, for dev, CI and single-node deployments without Azure.
+ *
+ * Blobs are files under {@code storage.local.root}. Writes go to a temporary file through a
+ * FileChannel and are published with a hard link (create-only) or an atomic move, so readers
+ * never see partial files. Clients read and upload through {@code /files/**} URLs signed with
+ * HMAC-SHA256 (see LocalStorageController).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageService implements StorageBackend {
+
+    static final String FILES_PATH = "/files/";
+    public static final String READ = "r";
+    public static final String WRITE = "w";
+
+    private static final String TMP_DIR = ".tmp";
+    private static final String CHUNKS_DIR = ".chunks";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path tmpDir;
+    private final Path chunksDir;
+    private final String baseUrl;
+    private final SecretKeySpec signingKey;
+
+    public LocalStorageService(@Value("${storage.local.root:./data/blobs}") String root,
+                               @Value("${storage.local.base-url:http://localhost:8080/api/v1}") String baseUrl,
+                               @Value("${storage.local.signing-key:}") String signingKey,
+                               @Value("${jwt.secret}") String jwtSecret) throws IOException {
+        this.root = Files.createDirectories(Path.of(root)).toAbsolutePath().normalize();
+        this.tmpDir = Files.createDirectories(this.root.resolve(TMP_DIR));
+        this.chunksDir = Files.createDirectories(this.root.resolve(CHUNKS_DIR));
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.signingKey = DerivedKeys.hmacKey(signingKey, jwtSecret, "local-storage-url");
+
+        // Leftovers of writes interrupted by a restart
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(tmpDir)) {
+            for (Path leftover : leftovers) {
+                deleteQuietly(leftover);
+            }
+        }
+        log.info("Local storage initialized at {}", this.root);
+    }
+
+    @Override
+    public UploadResult uploadStream(InputStream inputStream, String blobName, long maxBytes,
+                                     boolean stageBlocks, Function<String, String> reuseExisting) {
+        Path target = resolve(blobName);
+        MessageDigest digest = sha256();
+        Path temp = stageBlocks ? newTempFile() : null;
+        try {
+            long total = copy(inputStream, temp, digest, maxBytes);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+
+            String existing = reuseExisting.apply(sha256);
+            if (existing != null) {
+                return new UploadResult(existing, total, sha256, null, false);
+            }
+            if (!stageBlocks) {
+                throw new StorageException("Existing content is no longer available. Please retry the upload.");
+            }
+
+            try {
+                publishCreateOnly(temp, target);
+            } catch (FileAlreadyExistsException e) {
+                // Same content stored concurrently under its content address
+                String reused = reuseExisting.apply(sha256);
+                if (reused != null) {
+                    return new UploadResult(reused, total, sha256, null, false);
+                }
+                // Released but not deleted yet: register the existing file again
+                BlobInfo released = head(blobName);
+                if (released == null || released.getSize() != total) {
+                    throw new StorageException("Upload conflicted with a blob being deleted: " + blobName, e);
+                }
+                log.info("Upload re-registered existing file: {} ({} bytes)", blobName, total);
+                return new UploadResult(blobName, total, sha256, released.getEtag(), true);
+            }
+            log.info("File stored locally: {} ({} bytes)", blobName, total);
+            return new UploadResult(blobName, total, sha256, etagOf(target), true);
+        } catch (IOException e) {
+            throw new StorageException("Failed to store file: " + blobName, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Copy the stream into {@code temp} (or only hash it if temp is null), enforcing the size limit.
+     */
+    private static long copy(InputStream inputStream, Path temp, MessageDigest digest, long maxBytes)
+            throws IOException {
+        try (FileChannel channel = temp != null ? FileChannel.open(temp, StandardOpenOption.WRITE) : null) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            long total = 0;
+            while (true) {
+                int read;
+                try {
+                    read = inputStream.read(buffer);
+                } catch (IOException e) {
+                    log.error("Failed to read upload stream", e);
+                    throw new InvalidFileException("Failed to upload file: " + e.getMessage());
+                }
+                if (read < 0) {
+                    break;
+                }
+                total += read;
+                if (total > maxBytes) {
+                    throw new InvalidFileException("File size exceeds the maximum allowed limit of "
+                            + DataSize.ofBytes(maxBytes).toMegabytes() + "MB");
+                }
+                digest.update(buffer, 0, read);
+                if (channel != null) {
+                    wrapped.clear().limit(read);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                }
+            }
+            if (total == 0) {
+                throw new InvalidFileException("File is required");
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Publish a finished file under a blob name that must not exist yet.
+     * A hard link is atomic and fails if the name is taken.
+     */
+    private static void publishCreateOnly(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, temp);
+        } catch (UnsupportedOperationException e) {
+            Files.move(temp, target);
+        }
+    }
+
+    /**
+     * Stage a chunk as its own file; restaging an index atomically replaces it.
+     */
+    @Override
+    public String stageChunk(String blobName, int index, InputStream data, long length) {
+        String chunkId = String.format("%08d", index);
+        Path temp = newTempFile();
+        try {
+            long written;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(data)) {
+                // Ask for one byte more than announced to detect overlong chunks
+                written = channel.transferFrom(source, 0, length + 1);
+            }
+            if (written != length) {
+                throw new InvalidFileException("Chunk is shorter or longer than announced");
+            }
+            Path chunkDir = Files.createDirectories(chunkDir(blobName));
+            Files.move(temp, chunkDir.resolve(chunkId),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return chunkId;
+        } catch (IOException e) {
+            throw new StorageException("Failed to stage upload block", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Concatenate the chunks with zero-copy transfers and publish the result atomically.
+     */
+    @Override
+    public void commitChunks(String blobName, List<String> chunkIds) {
+        Path target = resolve(blobName);
+        Path chunkDir = chunkDir(blobName);
+        Path temp = newTempFile();
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (String chunkId : chunkIds) {
+                    Path chunk = chunkDir.resolve(chunkId).normalize();
+                    if (!chunk.getParent().equals(chunkDir)) {
+                        throw new InvalidFileException("Invalid chunk: " + chunkId);
+                    }
+                    try (FileChannel in = FileChannel.open(chunk, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new StorageException("Failed to commit upload blocks", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+        deleteRecursively(chunkDir);
+    }
+
+    @Override
+    public String generateUploadUrl(String blobName, OffsetDateTime expiresAt) {
+        return signedUrl(WRITE, blobName, expiresAt.toEpochSecond());
+    }
+
+    @Override
+    public Map<String, String> getUploadHeaders(String contentType) {
+        return Map.of("Content-Type", contentType != null ? contentType : "application/octet-stream");
+    }
+
+    /**
+     * Generate a read URL valid for 1 year, like the Azure SAS URLs.
+     */
+    @Override
+    public String generateReadUrl(String blobName) {
+        resolve(blobName);
+        return signedUrl(READ, blobName, Instant.now().plus(365, ChronoUnit.DAYS).getEpochSecond());
+    }
+
+    @Override
+    public String refreshReadUrl(String url) {
+        String blobName = blobNameOf(url);
+        if (blobName == null || !Files.exists(resolve(blobName))) {
+            return url;
+        }
+        return generateReadUrl(blobName);
+    }
+
+    @Override
+    public String blobNameOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        String path = url.split("\\?")[0];
+        int index = path.indexOf(FILES_PATH);
+        return index >= 0 ? UriUtils.decode(path.substring(index + FILES_PATH.length()), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Walk the directory tree lazily, skipping the internal temp and chunk directories.
+     */
+    @Override
+    public void listBlobs(int pageSize, Consumer<List<ListedBlob>> pageConsumer) {
+        List<ListedBlob> page = new ArrayList<>(pageSize);
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files
+                    .filter(path -> !path.startsWith(tmpDir) && !path.startsWith(chunksDir))
+                    .filter(Files::isRegularFile)
+                    .iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue; // Deleted while listing
+                }
+                String name = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                page.add(new ListedBlob(name, attributes.size(), etagOf(attributes),
+                        attributes.lastModifiedTime().toInstant()));
+                if (page.size() == pageSize) {
+                    pageConsumer.accept(page);
+                    page = new ArrayList<>(pageSize);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new StorageException("Failed to list blobs", e);
+        }
+        if (!page.isEmpty()) {
+            pageConsumer.accept(page);
+        }
+    }
+
+    @Override
+    public BlobInfo head(String blobName) {
+        Path path = resolve(blobName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new BlobInfo(attributes.size(), etagOf(attributes));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new StorageException("Failed to read blob properties: " + blobName, e);
+        }
+    }
+
+    @Override
+    public byte[] readRange(String blobName, long offset, int length) {
+        try (FileChannel channel = FileChannel.open(resolve(blobName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - offset)));
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            throw new StorageException("Failed to read blob: " + blobName, e);
+        }
+    }
+
+    @Override
+    public void downloadToFile(String blobName, Path target) {
+        try {
+            Files.copy(resolve(blobName), target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Audio", "blob", blobName);
+        } catch (IOException e) {
+            throw new StorageException("Failed to download blob: " + blobName, e);
+        }
+    }
+
+    @Override
+    public void delete(String blobName) {
+        try {
+            if (Files.deleteIfExists(resolve(blobName))) {
+                log.info("File deleted locally: {}", blobName);
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to delete blob: " + blobName, e);
+        }
+        deleteRecursively(chunkDir(blobName));
+    }
+
+    /**
+     * Check-then-delete; not atomic, but blobs are only replaced by chunk commits of their own session.
+     */
+    @Override
+    public boolean deleteIfMatch(String blobName, String etag) {
+        if (etag == null) {
+            delete(blobName);
+            return true;
+        }
+        BlobInfo info = head(blobName);
+        if (info == null || !etag.equals(info.getEtag())) {
+            log.info("Skipped deleting {}: blob missing or rewritten", blobName);
+            return false;
+        }
+        delete(blobName);
+        return true;
+    }
+
+    @Override
+    public int deleteAll(Collection<String> blobNames) {
+        int deleted = 0;
+        for (String blobName : blobNames) {
+            try {
+                if (Files.deleteIfExists(resolve(blobName))) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                throw new StorageException("Failed to delete blob: " + blobName, e);
+            }
+            deleteRecursively(chunkDir(blobName));
+        }
+        log.info("Deleted {} local blobs", deleted);
+        return deleted;
+    }
+
+    @Override
+    public void deleteByUrl(String url) {
+        String blobName = blobNameOf(url);
+        if (blobName == null) {
+            return;
+        }
+        try {
+            delete(blobName);
+        } catch (RuntimeException e) {
+            log.error("Failed to delete local file: {}", url, e);
+        }
+    }
+
+    /**
+     * Verify a signed URL; throws if the signature is wrong or expired.
+     */
+    public void checkSignature(String operation, String blobName, long expires, String signature) {
+        byte[] expected = sign(operation, blobName, expires).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature != null ? signature.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new UnauthorizedException("Invalid file signature");
+        }
+        if (expires < Instant.now().getEpochSecond()) {
+            throw new UnauthorizedException("File URL has expired");
+        }
+    }
+
+    /**
+     * Local path of a blob.
+     */
+    public Path pathOf(String blobName) {
+        return resolve(blobName);
+    }
+
+    private String signedUrl(String operation, String blobName, long expires) {
+        return baseUrl + FILES_PATH + UriUtils.encodePath(blobName, StandardCharsets.UTF_8)
+                + "?exp=" + expires + "&sig=" + sign(operation, blobName, expires);
+    }
+
+    private String sign(String operation, String blobName, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal((operation + "\n" + blobName + "\n" + expires)
+                    .getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Resolve a blob name under the root, rejecting names that escape it or hit internal directories.
+     */
+    private Path resolve(String blobName) {
+        if (blobName == null || blobName.isBlank() || blobName.startsWith(".") || blobName.contains("/.")) {
+            throw new InvalidFileException("Invalid blob name");
+        }
+        Path path = root.resolve(blobName).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new InvalidFileException("Invalid blob name");
+        }
+        return path;
+    }
+
+    private Path chunkDir(String blobName) {
+        return chunksDir.resolve(HexFormat.of().formatHex(sha256().digest(blobName.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private Path newTempFile() {
+        try {
+            return Files.createFile(tmpDir.resolve(UUID.randomUUID().toString()));
+        } catch (IOException e) {
+            throw new StorageException("Failed to create temporary file", e);
+        }
+    }
+
+    private static String etagOf(Path path) throws IOException {
+        return etagOf(Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * Every write publishes a new file, so modification time, size and file key identify the content.
+     */
+    private static String etagOf(BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return Long.toHexString(attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS))
+                + "-" + Long.toHexString(attributes.size())
+                + (fileKey != null ? "-" + Integer.toHexString(fileKey.hashCode()) : "");
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.debug("Could not list {}: {}", dir, e.getMessage());
+        }
+        deleteQuietly(dir);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
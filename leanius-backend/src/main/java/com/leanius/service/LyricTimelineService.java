@@ -0,0 +1,210 @@
+package com.leanius.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leanius.dto.LyricPositionResponse;
+import com.leanius.exception.ResourceNotFoundException;
+import com.leanius.model.LyricLine;
+import com.leanius.model.Song;
+import com.leanius.repository.SongRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for "which lyric line is active at time t" lookups.
+ *
+ * For each song version a timeline of offset-adjusted start times is precomputed once
+ * and cached, so a lookup is a binary search instead of a scan over syncedLyrics.
+ */
+@Slf4j
+@Service
+public class LyricTimelineService {
+
+    private static final int MAX_NEXT_LINES = 20;
+
+    private final SongRepository songRepository;
+    private final Cache<String, LyricTimeline> timelines;
+
+    public LyricTimelineService(SongRepository songRepository,
+                                @Value("${lyrics.timeline.cache-size:10000}") long cacheSize) {
+        this.songRepository = songRepository;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(Duration.ofHours(6))
+                .build();
+    }
+
+    /**
+     * Get the active line and the next lines for a playback position.
+     *
+     * @param confirmedOnly only allow songs whose lyrics have been confirmed (embed player)
+     */
+    public LyricPositionResponse getLyricsAt(String songId, String userId, long positionMs,
+                                             int nextLines, boolean confirmedOnly) {
+        Song versionInfo = songRepository.findVersionByIdAndUserId(songId, userId)
+                .filter(song -> !confirmedOnly || song.isLyricsConfirmed())
+                .orElseThrow(() -> new ResourceNotFoundException("Song", "id", songId));
+
+        LyricTimeline timeline = getTimeline(songId, versionOf(versionInfo));
+        return timeline.lookup(positionMs, Math.max(0, Math.min(nextLines, MAX_NEXT_LINES)));
+    }
+
+    /**
+     * Get the cached timeline for a song version, rebuilding it if the song changed.
+     */
+    public LyricTimeline getTimeline(String songId, long version) {
+        LyricTimeline cached = timelines.getIfPresent(songId);
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+        // Loaded outside the map so no bin lock is held during the query; concurrent builds keep the newest
+        Song song = songRepository.findById(songId)
+                .orElseThrow(() -> new ResourceNotFoundException("Song", "id", songId));
+        LyricTimeline built = LyricTimeline.build(song.getId(), versionOf(song),
+                song.getSyncedLyrics(), song.getSyncOffset());
+        log.debug("Built lyric timeline for song {} ({} lines)", songId, built.size());
+        return timelines.asMap().merge(songId, built,
+                (existing, fresh) -> existing.getVersion() >= fresh.getVersion() ? existing : fresh);
+    }
+
+    /**
+     * Drop the cached timeline of a song.
+     */
+    public void evict(String songId) {
+        timelines.invalidate(songId);
+    }
+
+    /**
+     * Version of a song: its last update time (or creation time) in epoch milliseconds.
+     */
+    public static long versionOf(Song song) {
+        LocalDateTime changedAt = song.getUpdatedAt() != null ? song.getUpdatedAt() : song.getCreatedAt();
+        return changedAt != null ? changedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    /**
+     * Immutable, offset-adjusted lyric timeline for one song version.
+     * {@code startTimes} is sorted ascending; {@code lineIndices[i]} is the position of
+     * that line in the song's syncedLyrics list.
+     */
+    public static final class LyricTimeline {
+
+        private final String songId;
+        private final long version;
+        private final long[] startTimes;
+        private final int[] lineIndices;
+        private final String[] texts;
+
+        private LyricTimeline(String songId, long version, long[] startTimes, int[] lineIndices, String[] texts) {
+            this.songId = songId;
+            this.version = version;
+            this.startTimes = startTimes;
+            this.lineIndices = lineIndices;
+            this.texts = texts;
+        }
+
+        static LyricTimeline build(String songId, long version, List<LyricLine> lyrics, long syncOffset) {
+            List<LyricLine> lines = lyrics != null ? lyrics : Collections.emptyList();
+            int size = lines.size();
+            long[] startTimes = new long[size];
+            int[] lineIndices = new int[size];
+            String[] texts = new String[size];
+
+            boolean sorted = true;
+            for (int i = 0; i < size; i++) {
+                // The player shows a line once position + offset reaches its timestamp
+                startTimes[i] = lines.get(i).getStartTimeMs() - syncOffset;
+                lineIndices[i] = i;
+                texts[i] = lines.get(i).getText();
+                if (i > 0 && startTimes[i] < startTimes[i - 1]) {
+                    sorted = false;
+                }
+            }
+
+            // Stored lyrics are normally sorted already; order them here if not
+            if (!sorted) {
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                long[] unsortedTimes = startTimes.clone();
+                Arrays.sort(order, (a, b) -> Long.compare(unsortedTimes[a], unsortedTimes[b]));
+                for (int i = 0; i < size; i++) {
+                    startTimes[i] = unsortedTimes[order[i]];
+                    lineIndices[i] = order[i];
+                    texts[i] = lines.get(order[i]).getText();
+                }
+            }
+
+            return new LyricTimeline(songId, version, startTimes, lineIndices, texts);
+        }
+
+        /**
+         * Find the line active at {@code positionMs} (the last line starting at or before it)
+         * and the {@code nextLines} lines after it.
+         */
+        public LyricPositionResponse lookup(long positionMs, int nextLines) {
+            int active = floorIndex(positionMs);
+            int first = active + 1;
+            int last = Math.min(startTimes.length, first + nextLines);
+
+            List<LyricPositionResponse.IndexedLyricLine> upcoming = new ArrayList<>(Math.max(0, last - first));
+            for (int i = first; i < last; i++) {
+                upcoming.add(line(i));
+            }
+
+            return LyricPositionResponse.builder()
+                    .songId(songId)
+                    .version(version)
+                    .positionMs(positionMs)
+                    .activeLine(active >= 0 ? line(active) : null)
+                    .nextLines(upcoming)
+                    .nextChangeMs(first < startTimes.length ? startTimes[first] : null)
+                    .build();
+        }
+
+        /**
+         * Binary search for the last index whose start time is {@code <= positionMs}, or -1.
+         */
+        int floorIndex(long positionMs) {
+            int low = 0;
+            int high = startTimes.length - 1;
+            int result = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (startTimes[mid] <= positionMs) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+
+        private LyricPositionResponse.IndexedLyricLine line(int i) {
+            return LyricPositionResponse.IndexedLyricLine.builder()
+                    .index(lineIndices[i])
+                    .startTimeMs(startTimes[i])
+                    .text(texts[i])
+                    .build();
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return startTimes.length;
+        }
+    }
+}
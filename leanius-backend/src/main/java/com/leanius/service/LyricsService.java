@@ -28,20 +28,37 @@ public class LyricsService {
      * @throws com.leanius.exception.SyncedLyricsNotFoundException if synced lyrics are not available
      */
     public LyricsData checkAndFetchSyncedLyrics(String artist, String title) {
+        return checkAndFetchSyncedLyrics(artist, title, 0);
+    }
+
+    /**
+     * Same as {@link #checkAndFetchSyncedLyrics(String, String)}, preferring the LRCLib entry
+     * whose duration matches the audio file (e.g., album vs. radio edit).
+     *
+     * @param durationMs duration of the audio file, or 0 if unknown
+     */
+    public LyricsData checkAndFetchSyncedLyrics(String artist, String title, long durationMs) {
         log.debug("Checking synced lyrics availability for '{}' by '{}'", title, artist);
         
-        LRCLibClient.LRCLibResponse response = lrcLibClient.getLyrics(artist, title);
+        // Synced lyrics are parsed incrementally as the LRCLib response streams in
+        LRCLibClient.LRCLibResponse response = null;
+        if (durationMs > 0) {
+            response = lrcLibClient.getSyncedLyrics(artist, title, (int) Math.round(durationMs / 1000.0));
+        }
+        if (response == null || response.getSyncedLines() == null) {
+            // No entry with a matching duration: fall back to artist and title only
+            response = lrcLibClient.getSyncedLyrics(artist, title);
+        }
         
         // Check if we got a response and if it has synced lyrics
-        if (response == null || response.getSyncedLyrics() == null || response.getSyncedLyrics().isEmpty()) {
+        if (response == null || response.getSyncedLines() == null) {
             log.info("No synced lyrics available for '{}' by '{}'", title, artist);
             return null; // Indicates no synced lyrics available
         }
         
-        // Parse the synced lyrics
-        List<LyricLine> syncedLyrics = lyricsParser.parseLRCFormat(response.getSyncedLyrics());
+        List<LyricLine> syncedLyrics = response.getSyncedLines();
         
-        if (syncedLyrics == null || syncedLyrics.isEmpty()) {
+        if (syncedLyrics.isEmpty()) {
             log.info("Failed to parse synced lyrics for '{}' by '{}'", title, artist);
             return null;
         }
@@ -51,6 +68,22 @@ public class LyricsService {
         return new LyricsData(response.getPlainLyrics(), syncedLyrics, "SYNCED");
     }
 
+    /**
+     * Synced lyrics of the LRCLib entry whose duration matches the audio file, or null if no
+     * entry matches. Used when the duration is only known after the upload.
+     */
+    public LyricsData findSyncedLyricsForDuration(String artist, String title, long durationMs) {
+        if (durationMs <= 0) {
+            return null;
+        }
+        LRCLibClient.LRCLibResponse response =
+                lrcLibClient.getSyncedLyrics(artist, title, (int) Math.round(durationMs / 1000.0));
+        if (response == null || response.getSyncedLines() == null || response.getSyncedLines().isEmpty()) {
+            return null;
+        }
+        return new LyricsData(response.getPlainLyrics(), response.getSyncedLines(), "SYNCED");
+    }
+
     /**
      * Fetch lyrics for a song from LRCLib API.
      * @deprecated Use {@link #checkAndFetchSyncedLyrics(String, String)} instead to ensure synced lyrics are available.
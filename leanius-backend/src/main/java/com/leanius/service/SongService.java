@@ -9,15 +9,23 @@ import com.leanius.exception.SyncedLyricsNotFoundException;
 import com.leanius.model.LyricLine;
 import com.leanius.model.Song;
 import com.leanius.repository.SongRepository;
+import com.leanius.util.AudioProbe;
 import com.leanius.util.FileValidator;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -32,46 +40,147 @@ public class SongService {
     private static final int LYRICS_PREVIEW_LINES = 4;
 
     private final SongRepository songRepository;
-    private final AzureStorageService azureStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final StorageBackend storageBackend;
+    private final AudioStorageService audioStorageService;
     private final LyricsService lyricsService;
     private final FileValidator fileValidator;
+    private final ObservationRegistry observationRegistry;
 
     /**
      * Upload a new song.
      * Checks for synced lyrics availability BEFORE uploading the audio file.
+     * Each step is observed as an upload.stage (metric and span).
      */
     public SongUploadResponse uploadSong(MultipartFile file, String title, String artist, String userId) {
         // Check song limit
-        long currentCount = songRepository.countByUserId(userId);
-        if (currentCount >= MAX_SONGS_PER_USER) {
-            throw new SongLimitExceededException();
-        }
+        stage("limit", () -> checkSongLimit(userId));
 
         // Validate file format (but don't upload yet)
         fileValidator.validateAudioFile(file);
+        String format = fileValidator.getFileExtension(file.getOriginalFilename());
+
+        // Hash the local temp file and read its audio headers in one pass
+        AudioProbe probe = new AudioProbe(format);
+        String contentHash = stage("hash", () -> audioStorageService.hashFile(file, probe));
+        AudioProbe.AudioInfo audioInfo = probe.finish(file.getSize());
 
         // IMPORTANT: Check for synced lyrics BEFORE uploading to Azure
         // This prevents wasting storage for songs without synced lyrics
-        LyricsService.LyricsData lyricsData = lyricsService.checkAndFetchSyncedLyrics(artist, title);
-        
+        LyricsService.LyricsData lyricsData = stage("lyrics",
+                () -> requireSyncedLyrics(title, artist, audioInfo.getDurationMs()));
+
+        // Now that we've confirmed synced lyrics exist, upload to Azure Storage
+        AudioStorageService.StoredAudio audio = stage("store", () -> audioStorageService.storeFile(file, contentHash,
+                fileValidator.getMaxFileSize()));
+
+        return stage("save", () -> saveOrRelease(audio,
+                () -> createPendingSong(userId, title, artist, audio, format, audioInfo, lyricsData)));
+    }
+
+    /**
+     * Upload a new song from a raw request body.
+     * The body is streamed to Azure block by block instead of being buffered to a temp file first.
+     *
+     * @param contentLength declared body length, or -1 if unknown
+     * @param contentSha256 hex SHA-256 of the file declared by the client, or null
+     */
+    public SongUploadResponse uploadSongStream(InputStream inputStream, String filename, String contentType,
+                                               long contentLength, String contentSha256,
+                                               String title, String artist, String userId) {
+        stage("limit", () -> checkSongLimit(userId));
+        fileValidator.validateAudioUpload(filename, contentType, contentLength);
+
+        // The duration is not known yet; this only rejects songs without synced lyrics up front
+        LyricsService.LyricsData anyLyrics = stage("lyrics", () -> requireSyncedLyrics(title, artist, 0));
+
+        // Audio headers are read while the body streams to storage
+        String format = fileValidator.getFileExtension(filename);
+        AudioProbe probe = new AudioProbe(format);
+        AudioStorageService.StoredAudio audio = stage("store", () -> audioStorageService.storeStream(
+                probe.tee(inputStream), filename, userId, fileValidator.getMaxFileSize(), contentSha256));
+
+        // The audio is stored and referenced from here on: any failure must release it
+        return stage("save", () -> saveOrRelease(audio, () -> {
+            AudioProbe.AudioInfo audioInfo = probe.finish(audio.getSize());
+            // Prefer the entry matching the duration, as multipart uploads do
+            LyricsService.LyricsData matched = lyricsService.findSyncedLyricsForDuration(
+                    artist, title, audioInfo.getDurationMs());
+            return createPendingSong(userId, title, artist, audio, format, audioInfo,
+                    matched != null ? matched : anyLyrics);
+        }));
+    }
+
+    /**
+     * Create the song for stored audio. If that fails, the audio's blob reference is given back;
+     * otherwise nothing would ever release it.
+     */
+    private SongUploadResponse saveOrRelease(AudioStorageService.StoredAudio audio, Supplier<SongUploadResponse> save) {
+        try {
+            return save.get();
+        } catch (RuntimeException e) {
+            try {
+                audioStorageService.release(audio);
+            } catch (RuntimeException releaseError) {
+                log.warn("Failed to release audio {} of a failed upload: {}", audio.getBlobName(), releaseError.getMessage());
+                e.addSuppressed(releaseError);
+            }
+            throw e;
+        }
+    }
+
+    private <T> T stage(String stage, Supplier<T> step) {
+        return Observation.createNotStarted("upload.stage", observationRegistry)
+                .lowCardinalityKeyValue("stage", stage)
+                .contextualName("upload " + stage)
+                .observe(step);
+    }
+
+    private void stage(String stage, Runnable step) {
+        Observation.createNotStarted("upload.stage", observationRegistry)
+                .lowCardinalityKeyValue("stage", stage)
+                .contextualName("upload " + stage)
+                .observe(step);
+    }
+
+    void checkSongLimit(String userId) {
+        long currentCount = songRepository.countByUserId(userId);
+        if (currentCount >= MAX_SONGS_PER_USER) {
+            throw new SongLimitExceededException();
+        }
+    }
+
+    /**
+     * @param durationMs audio duration to match LRCLib entries against, or 0 if unknown
+     */
+    LyricsService.LyricsData requireSyncedLyrics(String title, String artist, long durationMs) {
+        LyricsService.LyricsData lyricsData = lyricsService.checkAndFetchSyncedLyrics(artist, title, durationMs);
+
         if (lyricsData == null || !lyricsData.hasSyncedLyrics()) {
             log.info("Upload rejected: No synced lyrics available for '{}' by '{}'", title, artist);
             throw new SyncedLyricsNotFoundException(artist, title);
         }
+        return lyricsData;
+    }
 
-        // Now that we've confirmed synced lyrics exist, upload to Azure Storage
-        String audioUrl = azureStorageService.uploadFile(file, userId);
-        String format = fileValidator.getFileExtension(file.getOriginalFilename());
-
-        // Create song record (not yet confirmed)
+    /**
+     * Create the song record for an uploaded file (not yet confirmed) and build the upload response.
+     */
+    SongUploadResponse createPendingSong(String userId, String title, String artist,
+                                         AudioStorageService.StoredAudio audio, String format,
+                                         AudioProbe.AudioInfo audioInfo, LyricsService.LyricsData lyricsData) {
         Song song = Song.builder()
                 .userId(userId)
                 .title(title)
                 .artist(artist)
-                .audioUrl(audioUrl)
-                .audioFileSize(file.getSize())
+                .audioUrl(audio.getAudioUrl())
+                .blobName(audio.getBlobName())
+                .audioFileSize(audio.getSize())
                 .audioFormat(format)
-                .duration(0) // Will be updated later or from metadata
+                .contentHash(audio.getContentHash())
+                .duration(audioInfo.getDurationMs())
+                .bitrate(audioInfo.getBitrate())
+                .sampleRate(audioInfo.getSampleRate())
                 .frequencyWeight(3) // Default weight
                 .lyricsConfirmed(false)
                 .rawLyrics(lyricsData.getRawLyrics())
@@ -111,8 +220,10 @@ public class SongService {
             log.info("Lyrics confirmed for song: {}", songId);
         } else {
             // Delete song and file if rejected
-            azureStorageService.deleteFile(song.getAudioUrl());
-            songRepository.delete(song);
+            if (!remove(song)) {
+                throw new ResourceNotFoundException("Song", "id", songId);
+            }
+            audioStorageService.release(song);
             log.info("Song upload rejected and deleted: {}", songId);
         }
     }
@@ -127,6 +238,21 @@ public class SongService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Locate the audio blob of a confirmed song, for delivery through the embed player.
+     */
+    public AudioSource getAudioSource(String songId, String userId) {
+        Song song = songRepository.findAudioByIdAndUserId(songId, userId)
+                .filter(Song::isLyricsConfirmed)
+                .orElseThrow(() -> new ResourceNotFoundException("Song", "id", songId));
+        String blobName = song.getBlobName() != null
+                ? song.getBlobName() : storageBackend.blobNameOf(song.getAudioUrl());
+        if (blobName == null) {
+            throw new ResourceNotFoundException("Audio", "songId", songId);
+        }
+        return new AudioSource(blobName, fileValidator.getContentType(song.getAudioFormat()));
+    }
+
     /**
      * Delete a song.
      */
@@ -134,11 +260,22 @@ public class SongService {
         Song song = songRepository.findByIdAndUserId(songId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Song", "id", songId));
 
-        azureStorageService.deleteFile(song.getAudioUrl());
-        songRepository.delete(song);
+        if (!remove(song)) {
+            throw new ResourceNotFoundException("Song", "id", songId);
+        }
+        audioStorageService.release(song);
         log.info("Song deleted: {} by user {}", songId, userId);
     }
 
+    /**
+     * Remove a song's document. Only the caller that removed it may release its audio, so
+     * concurrent deletes, rejects and the reconciler's expiry release the reference once.
+     */
+    private boolean remove(Song song) {
+        Query query = Query.query(Criteria.where("_id").is(song.getId()).and("userId").is(song.getUserId()));
+        return mongoTemplate.remove(query, Song.class).getDeletedCount() > 0;
+    }
+
     /**
      * Update song frequency weight.
      */
@@ -206,7 +343,7 @@ public class SongService {
      */
     private SongDTO toSongDTO(Song song) {
         // Generate SAS URL for secure audio access
-        String secureAudioUrl = azureStorageService.generateSasUrlFromBlobUrl(song.getAudioUrl());
+        String secureAudioUrl = storageBackend.refreshReadUrl(song.getAudioUrl());
         
         return SongDTO.builder()
                 .id(song.getId())
@@ -214,6 +351,8 @@ public class SongService {
                 .artist(song.getArtist())
                 .audioUrl(secureAudioUrl)
                 .duration(song.getDuration())
+                .bitrate(song.getBitrate())
+                .sampleRate(song.getSampleRate())
                 .frequencyWeight(song.getFrequencyWeight())
                 .syncOffset(song.getSyncOffset())
                 .syncType(song.getSyncType())
@@ -224,7 +363,7 @@ public class SongService {
     /**
      * Generate lyrics preview from synced or raw lyrics.
      */
-    private String getLyricsPreview(List<LyricLine> syncedLyrics, String rawLyrics) {
+    String getLyricsPreview(List<LyricLine> syncedLyrics, String rawLyrics) {
         if (syncedLyrics != null && !syncedLyrics.isEmpty()) {
             return syncedLyrics.stream()
                     .limit(LYRICS_PREVIEW_LINES)
@@ -244,4 +383,25 @@ public class SongService {
         
         return "No lyrics available";
     }
+
+    /**
+     * Where a song's audio is stored and how to serve it.
+     */
+    public static class AudioSource {
+        private final String blobName;
+        private final String contentType;
+
+        public AudioSource(String blobName, String contentType) {
+            this.blobName = blobName;
+            this.contentType = contentType;
+        }
+
+        public String getBlobName() {
+            return blobName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package com.leanius.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Blob storage used for audio files. Selected with {@code storage.backend}:
+ * {@code azure} (default, {@link AzureStorageService}) or {@code local} ({@link LocalStorageService}).
+ *
+ * Blobs are addressed by name (e.g. {@code userId/123_ab12cd34.mp3}) and never overwritten by
+ * {@link #uploadStream}; clients receive signed URLs to read or upload them.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stream an upload into a blob, computing its SHA-256 on the way.
+     *
+     * Nothing is published if the stream fails or exceeds {@code maxBytes}. Once the whole stream
+     * has been read, {@code reuseExisting} is called with the hex SHA-256; it returns the name of an
+     * existing blob with the same content, in which case that blob is used instead, or null to
+     * publish this upload. An existing blob at {@code blobName} is never overwritten; if
+     * {@code reuseExisting} still returns null for it (content released but not deleted yet), that
+     * blob is returned as committed, with its ETag, so it can be registered again. Only content
+     * addresses can already exist, so the existing blob holds the same content.
+     *
+     * @param stageBlocks false to only read and hash the stream (content expected to exist already)
+     */
+    UploadResult uploadStream(InputStream inputStream, String blobName, long maxBytes,
+                              boolean stageBlocks, Function<String, String> reuseExisting);
+
+    /**
+     * Store a small blob held in memory.
+     */
+    default UploadResult put(String blobName, byte[] data) {
+        return uploadStream(new ByteArrayInputStream(data), blobName, data.length, true, sha256 -> null);
+    }
+
+    /**
+     * Stage one chunk of a resumable upload; restaging an index replaces the chunk.
+     *
+     * @return the ID to pass to {@link #commitChunks}
+     */
+    String stageChunk(String blobName, int index, InputStream data, long length);
+
+    /**
+     * Assemble the staged chunks in order, making the blob visible.
+     */
+    void commitChunks(String blobName, List<String> chunkIds);
+
+    /**
+     * Generate a unique blob name for a user's upload.
+     */
+    default String newBlobName(String userId, String filename) {
+        int dot = filename != null ? filename.lastIndexOf('.') : -1;
+        return String.format("%s/%s_%s.%s",
+                userId,
+                System.currentTimeMillis(),
+                UUID.randomUUID().toString().substring(0, 8),
+                dot >= 0 ? filename.substring(dot + 1).toLowerCase() : "");
+    }
+
+    /**
+     * Signed URL a client can PUT the content of a new blob to, until {@code expiresAt}.
+     * The URL creates the blob once; it cannot overwrite it.
+     */
+    String generateUploadUrl(String blobName, OffsetDateTime expiresAt);
+
+    /**
+     * Headers the client must send with the PUT to an upload URL.
+     */
+    Map<String, String> getUploadHeaders(String contentType);
+
+    /**
+     * Long-lived signed read URL for a blob.
+     */
+    String generateReadUrl(String blobName);
+
+    /**
+     * Re-sign a stored read URL, or return it unchanged if it is not one of ours.
+     */
+    String refreshReadUrl(String url);
+
+    /**
+     * Blob name of a (possibly signed) read URL, or null if it is not one of ours.
+     */
+    String blobNameOf(String url);
+
+    /**
+     * Walk all blobs page by page. Only the current page is held in memory.
+     */
+    void listBlobs(int pageSize, Consumer<List<ListedBlob>> pageConsumer);
+
+    /**
+     * Size and ETag of a blob, or null if it does not exist.
+     */
+    BlobInfo head(String blobName);
+
+    /**
+     * Read a byte range of a blob (e.g., its headers).
+     */
+    byte[] readRange(String blobName, long offset, int length);
+
+    /**
+     * Download a whole blob into a local file, overwriting it.
+     */
+    void downloadToFile(String blobName, Path target);
+
+    /**
+     * Delete a blob (and any chunks staged for it) if it exists.
+     */
+    void delete(String blobName);
+
+    /**
+     * Delete a blob only if it still has the given ETag, i.e., it was not rewritten since.
+     *
+     * @return true if the blob was deleted
+     */
+    boolean deleteIfMatch(String blobName, String etag);
+
+    /**
+     * Delete many blobs at once; missing blobs are ignored.
+     *
+     * @return the number of blobs deleted
+     */
+    int deleteAll(Collection<String> blobNames);
+
+    /**
+     * Delete the blob behind a read URL, ignoring URLs that are not ours.
+     */
+    void deleteByUrl(String url);
+
+    /**
+     * Result of {@link #uploadStream}. {@code committed} is false when existing content was reused;
+     * {@code blobName} is then the existing blob and {@code etag} is null.
+     */
+    class UploadResult {
+        private final String blobName;
+        private final long size;
+        private final String sha256;
+        private final String etag;
+        private final boolean committed;
+
+        public UploadResult(String blobName, long size, String sha256, String etag, boolean committed) {
+            this.blobName = blobName;
+            this.size = size;
+            this.sha256 = sha256;
+            this.etag = etag;
+            this.committed = committed;
+        }
+
+        public String getBlobName() {
+            return blobName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public boolean isCommitted() {
+            return committed;
+        }
+    }
+
+    /**
+     * Properties of a stored blob.
+     */
+    class BlobInfo {
+        private final long size;
+        private final String etag;
+
+        public BlobInfo(long size, String etag) {
+            this.size = size;
+            this.etag = etag;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * A blob returned by {@link #listBlobs}.
+     */
+    class ListedBlob extends BlobInfo {
+        private final String name;
+        private final Instant lastModified;
+
+        public ListedBlob(String name, long size, String etag, Instant lastModified) {
+            super(size, etag);
+            this.name = name;
+            this.lastModified = lastModified;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+    }
+}
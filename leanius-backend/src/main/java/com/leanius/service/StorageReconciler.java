@@ -0,0 +1,211 @@
+package com.leanius.service;
+
+import com.leanius.model.BlobRef;
+import com.leanius.model.Song;
+import com.leanius.model.UploadSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Periodic cleanup of leaked storage.
+ *
+ * 1. Songs whose lyrics were never confirmed are deleted after {@code unconfirmed-ttl}.
+ * 2. Songs stored before blob names were recorded get their blobName backfilled from audioUrl.
+ * 3. The container is listed page by page; each page is checked against songs, blobRefs and
+ *    upload sessions with one query per collection, and unreferenced blobs older than
+ *    {@code grace-period} are deleted in a batch. Memory use is bounded by one page.
+ *
+ * Every step is idempotent. Runs on every instance unless {@code storage.reconciler.enabled=false}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.reconciler.enabled", havingValue = "true", matchIfMissing = true)
+public class StorageReconciler {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final StorageBackend storageBackend;
+    private final AudioStorageService audioStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final int pageSize;
+    private final Duration gracePeriod;
+    private final Duration unconfirmedTtl;
+    private final boolean dryRun;
+
+    private final Timer runTimer;
+    private final Counter scannedBlobs;
+    private final Counter orphanBlobs;
+    private final Counter expiredSongs;
+
+    public StorageReconciler(StorageBackend storageBackend,
+                             AudioStorageService audioStorageService,
+                             MongoTemplate mongoTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${storage.reconciler.page-size:1000}") int pageSize,
+                             @Value("${storage.reconciler.grace-period:P1D}") Duration gracePeriod,
+                             @Value("${storage.reconciler.unconfirmed-ttl:P1D}") Duration unconfirmedTtl,
+                             @Value("${storage.reconciler.dry-run:false}") boolean dryRun) {
+        this.storageBackend = storageBackend;
+        this.audioStorageService = audioStorageService;
+        this.mongoTemplate = mongoTemplate;
+        this.pageSize = pageSize;
+        this.gracePeriod = gracePeriod;
+        this.unconfirmedTtl = unconfirmedTtl;
+        this.dryRun = dryRun;
+
+        this.runTimer = Timer.builder("storage.reconciler.run")
+                .description("Duration of a storage reconciliation run")
+                .register(meterRegistry);
+        this.scannedBlobs = Counter.builder("storage.reconciler.scanned")
+                .description("Blobs checked by the reconciler")
+                .register(meterRegistry);
+        this.orphanBlobs = Counter.builder("storage.reconciler.orphans")
+                .description("Unreferenced blobs found (and deleted unless dry-run)")
+                .register(meterRegistry);
+        this.expiredSongs = Counter.builder("storage.reconciler.songs.expired")
+                .description("Unconfirmed songs deleted after the TTL")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.reconciler.interval:PT6H}",
+            initialDelayString = "${storage.reconciler.initial-delay:PT10M}")
+    public void reconcile() {
+        runTimer.record(() -> {
+            try {
+                int expired = expireUnconfirmedSongs();
+                int backfilled = backfillBlobNames();
+                long[] sweep = sweepOrphans();
+                log.info("Storage reconciliation: {} unconfirmed songs expired, {} blob names backfilled, "
+                        + "{} blobs scanned, {} orphans {}", expired, backfilled, sweep[0], sweep[1],
+                        dryRun ? "found (dry run)" : "deleted");
+            } catch (RuntimeException e) {
+                log.error("Storage reconciliation failed", e);
+            }
+        });
+    }
+
+    /**
+     * Delete songs left unconfirmed for longer than the TTL and release their audio.
+     */
+    int expireUnconfirmedSongs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(unconfirmedTtl);
+        int expired = 0;
+        while (true) {
+            Query stale = Query.query(Criteria.where("lyricsConfirmed").is(false).and("createdAt").lt(cutoff))
+                    .limit(BATCH_SIZE);
+            stale.fields().include("_id");
+            List<Song> batch = mongoTemplate.find(stale, Song.class);
+            for (Song candidate : batch) {
+                // Removing first makes sure a concurrent delete or reject does not release twice (see SongService)
+                Song song = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(candidate.getId())
+                        .and("lyricsConfirmed").is(false)), Song.class);
+                if (song != null) {
+                    audioStorageService.release(song);
+                    expiredSongs.increment();
+                    expired++;
+                }
+            }
+            if (batch.size() < BATCH_SIZE) {
+                return expired;
+            }
+        }
+    }
+
+    /**
+     * Record the blob name of songs stored before it was a field, so blobs can be matched by name.
+     */
+    int backfillBlobNames() {
+        int backfilled = 0;
+        String lastId = null;
+        while (true) {
+            Criteria missing = Criteria.where("blobName").exists(false);
+            if (lastId != null) {
+                missing = missing.and("_id").gt(lastId);
+            }
+            Query query = Query.query(missing).with(Sort.by("_id")).limit(BATCH_SIZE);
+            query.fields().include("_id", "audioUrl");
+            List<Song> batch = mongoTemplate.find(query, Song.class);
+            for (Song song : batch) {
+                lastId = song.getId();
+                String blobName = storageBackend.blobNameOf(song.getAudioUrl());
+                if (blobName == null) {
+                    // Not a URL of our container: references none of our blobs
+                    log.warn("Song {} has an audio URL outside the storage container", song.getId());
+                    continue;
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(song.getId())),
+                        Update.update("blobName", blobName), Song.class);
+                backfilled++;
+            }
+            if (batch.size() < BATCH_SIZE) {
+                return backfilled;
+            }
+        }
+    }
+
+    /**
+     * Stream the container listing and delete blobs nothing refers to.
+     *
+     * @return {scanned, orphans}
+     */
+    long[] sweepOrphans() {
+        long[] totals = new long[2];
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        storageBackend.listBlobs(pageSize, page -> {
+            totals[0] += page.size();
+            scannedBlobs.increment(page.size());
+
+            // Recent blobs may belong to uploads that are still being finalized
+            Set<String> candidates = new HashSet<>();
+            for (StorageBackend.ListedBlob blob : page) {
+                if (blob.getLastModified().isBefore(cutoff)) {
+                    candidates.add(blob.getName());
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            candidates.removeAll(referenced(candidates, Song.class));
+            candidates.removeAll(referenced(candidates, BlobRef.class));
+            candidates.removeAll(referenced(candidates, UploadSession.class));
+            if (candidates.isEmpty()) {
+                return;
+            }
+
+            totals[1] += candidates.size();
+            orphanBlobs.increment(candidates.size());
+            if (dryRun) {
+                log.info("Orphan blobs (dry run): {}", candidates);
+            } else {
+                storageBackend.deleteAll(candidates);
+            }
+        });
+        return totals;
+    }
+
+    private List<String> referenced(Set<String> blobNames, Class<?> entityClass) {
+        if (blobNames.isEmpty()) {
+            return List.of();
+        }
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("blobName").in(blobNames)),
+                "blobName", entityClass, String.class);
+    }
+}
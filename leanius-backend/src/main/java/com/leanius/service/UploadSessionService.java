@@ -0,0 +1,417 @@
+package com.leanius.service;
+
+import com.leanius.dto.DirectUploadResponse;
+import com.leanius.dto.SongUploadResponse;
+import com.leanius.dto.StartUploadRequest;
+import com.leanius.dto.UploadSessionResponse;
+import com.leanius.exception.ConflictException;
+import com.leanius.exception.InvalidFileException;
+import com.leanius.exception.ResourceNotFoundException;
+import com.leanius.model.UploadChunk;
+import com.leanius.model.UploadSession;
+import com.leanius.repository.UploadSessionRepository;
+import com.leanius.util.AudioProbe;
+import com.leanius.util.FileValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service for uploads that are checked up front and finalized in a separate step.
+ *
+ * Direct uploads: the session hands out a create-only signed URL (a SAS URL on Azure) for a
+ * pre-named blob and the client writes the audio straight to storage. No audio bytes pass
+ * through the backend, and once written the blob cannot be replaced through the URL.
+ *
+ * Resumable uploads: the client sends fixed-size chunks with a SHA-256 checksum each. Every
+ * chunk is streamed to storage as an uncommitted block and acknowledged on its own, so a
+ * failed chunk can be retried without resending the rest. Progress lives in the session
+ * document; no chunk data is held in memory.
+ *
+ * Completing either kind verifies the blob (size and file signature) and creates the song.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    private static final int CLEANUP_BATCH_SIZE = 100;
+    // Minimum lifetime of a session being completed, so cleanup does not discard it meanwhile
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofMinutes(15);
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final SongService songService;
+    private final StorageBackend storageBackend;
+    private final AudioStorageService audioStorageService;
+    private final FileValidator fileValidator;
+    private final MongoTemplate mongoTemplate;
+    private final JobQueueService jobQueueService;
+    private final Duration sessionTtl;
+    private final int chunkSize;
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository,
+                                SongService songService,
+                                StorageBackend storageBackend,
+                                AudioStorageService audioStorageService,
+                                FileValidator fileValidator,
+                                MongoTemplate mongoTemplate,
+                                JobQueueService jobQueueService,
+                                @Value("${upload.sessions.ttl:PT1H}") Duration sessionTtl,
+                                @Value("${upload.sessions.chunk-size:4MB}") DataSize chunkSize) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.songService = songService;
+        this.storageBackend = storageBackend;
+        this.audioStorageService = audioStorageService;
+        this.fileValidator = fileValidator;
+        this.mongoTemplate = mongoTemplate;
+        this.jobQueueService = jobQueueService;
+        this.sessionTtl = sessionTtl;
+        this.chunkSize = (int) chunkSize.toBytes();
+    }
+
+    /**
+     * Start a direct upload: validate, check lyrics and issue a signed upload URL for the target blob.
+     */
+    public DirectUploadResponse startDirectUpload(String userId, StartUploadRequest request) {
+        songService.checkSongLimit(userId);
+        fileValidator.validateAudioUpload(request.getFilename(), request.getContentType(), request.getSize());
+
+        // Check for synced lyrics BEFORE the client uploads anything
+        LyricsService.LyricsData lyricsData = songService.requireSyncedLyrics(request.getTitle(), request.getArtist(), 0);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(sessionTtl);
+        String blobName = storageBackend.newBlobName(userId, request.getFilename());
+        String uploadUrl = storageBackend.generateUploadUrl(blobName,
+                expiresAt.atZone(ZoneId.systemDefault()).toOffsetDateTime());
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .userId(userId)
+                .title(request.getTitle())
+                .artist(request.getArtist())
+                .filename(request.getFilename())
+                .audioFormat(fileValidator.getFileExtension(request.getFilename()))
+                .declaredSize(request.getSize())
+                .blobName(blobName)
+                .rawLyrics(lyricsData.getRawLyrics())
+                .syncedLyrics(lyricsData.getSyncedLyrics())
+                .syncType(lyricsData.getSyncType())
+                .expiresAt(expiresAt)
+                .build());
+
+        log.info("Direct upload started: {} for user {} -> {}", session.getId(), userId, blobName);
+
+        return DirectUploadResponse.builder()
+                .uploadId(session.getId())
+                .uploadUrl(uploadUrl)
+                .method("PUT")
+                .headers(storageBackend.getUploadHeaders(request.getContentType()))
+                .expiresAt(expiresAt)
+                .lyricsPreview(songService.getLyricsPreview(lyricsData.getSyncedLyrics(), lyricsData.getRawLyrics()))
+                .syncType(lyricsData.getSyncType())
+                .build();
+    }
+
+    /**
+     * Start a resumable upload: validate, check lyrics and create a session for chunked uploading.
+     */
+    public UploadSessionResponse startResumableUpload(String userId, StartUploadRequest request) {
+        songService.checkSongLimit(userId);
+        fileValidator.validateAudioUpload(request.getFilename(), request.getContentType(), request.getSize());
+
+        // Check for synced lyrics BEFORE the client uploads anything
+        LyricsService.LyricsData lyricsData = songService.requireSyncedLyrics(request.getTitle(), request.getArtist(), 0);
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .userId(userId)
+                .title(request.getTitle())
+                .artist(request.getArtist())
+                .filename(request.getFilename())
+                .audioFormat(fileValidator.getFileExtension(request.getFilename()))
+                .declaredSize(request.getSize())
+                .blobName(storageBackend.newBlobName(userId, request.getFilename()))
+                .chunkSize(chunkSize)
+                .totalChunks((int) ((request.getSize() + chunkSize - 1) / chunkSize))
+                .rawLyrics(lyricsData.getRawLyrics())
+                .syncedLyrics(lyricsData.getSyncedLyrics())
+                .syncType(lyricsData.getSyncType())
+                .expiresAt(LocalDateTime.now().plus(sessionTtl))
+                .build());
+
+        log.info("Resumable upload started: {} for user {} ({} chunks)",
+                session.getId(), userId, session.getTotalChunks());
+        return toResponse(session);
+    }
+
+    /**
+     * Receive one chunk of a resumable upload.
+     * The chunk is streamed to storage while its SHA-256 is computed; it is only
+     * acknowledged if the checksum matches.
+     *
+     * @param contentLength declared body length, or -1 if unknown
+     * @param expectedSha256 hex SHA-256 of the chunk as computed by the client
+     */
+    public UploadSessionResponse uploadChunk(String uploadId, String userId, int index, InputStream data,
+                                             long contentLength, String expectedSha256) {
+        UploadSession session = getActiveSession(uploadId, userId);
+        if (session.isCompleting()) {
+            throw new ConflictException("Upload is being completed");
+        }
+        if (session.getChunkSize() <= 0) {
+            throw new InvalidFileException("Upload does not accept chunks");
+        }
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new InvalidFileException("Chunk index out of range (0-" + (session.getTotalChunks() - 1) + ")");
+        }
+        if (expectedSha256 == null || !expectedSha256.matches("[0-9a-fA-F]{64}")) {
+            throw new InvalidFileException("A hex SHA-256 checksum of the chunk is required");
+        }
+
+        long expectedSize = index < session.getTotalChunks() - 1
+                ? session.getChunkSize()
+                : session.getDeclaredSize() - (long) index * session.getChunkSize();
+        if (contentLength >= 0 && contentLength != expectedSize) {
+            throw new InvalidFileException("Chunk " + index + " must be " + expectedSize + " bytes");
+        }
+
+        DigestInputStream digestStream = new DigestInputStream(data, sha256());
+        String blockId = storageBackend.stageChunk(session.getBlobName(), index, digestStream, expectedSize);
+        String actualSha256 = HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+
+        Query query = Query.query(Criteria.where("_id").is(uploadId).and("userId").is(userId));
+        if (!actualSha256.equalsIgnoreCase(expectedSha256)) {
+            // The block was overwritten with bad data; forget any earlier copy of this chunk
+            mongoTemplate.updateFirst(query, new Update().unset("chunks." + index), UploadSession.class);
+            throw new InvalidFileException("Checksum mismatch for chunk " + index + ". Please retry the chunk.");
+        }
+
+        UploadChunk chunk = UploadChunk.builder()
+                .index(index)
+                .blockId(blockId)
+                .size(expectedSize)
+                .sha256(actualSha256)
+                .build();
+        UploadSession updated = mongoTemplate.findAndModify(query, new Update().set("chunks." + index, chunk),
+                FindAndModifyOptions.options().returnNew(true), UploadSession.class);
+        if (updated == null) {
+            throw new ResourceNotFoundException("Upload", "id", uploadId);
+        }
+        return toResponse(updated);
+    }
+
+    /**
+     * Get the progress of an upload session (e.g., to find out which chunks to resend).
+     */
+    public UploadSessionResponse getStatus(String uploadId, String userId) {
+        return toResponse(getActiveSession(uploadId, userId));
+    }
+
+    /**
+     * Finalize an upload: commit the chunks (resumable uploads), verify the blob and
+     * create the song (not yet confirmed).
+     */
+    public SongUploadResponse complete(String uploadId, String userId) {
+        UploadSession session = claim(uploadId, userId);
+
+        StorageBackend.BlobInfo blob;
+        try {
+            if (session.getChunkSize() > 0) {
+                commitChunks(session);
+            }
+            blob = storageBackend.head(session.getBlobName());
+            if (blob == null) {
+                throw new InvalidFileException("Audio file has not been uploaded yet");
+            }
+        } catch (RuntimeException e) {
+            // Nothing was verified yet: let the client fix the upload and complete again
+            unclaim(session);
+            throw e;
+        }
+        long size = blob.getSize();
+
+        AudioProbe.AudioInfo audioInfo;
+        try {
+            // The song limit may have been reached by another upload in the meantime
+            songService.checkSongLimit(userId);
+            if (size != session.getDeclaredSize()) {
+                throw new InvalidFileException("Uploaded file size does not match the announced size");
+            }
+            fileValidator.validateAudioUpload(session.getFilename(), null, size);
+            // Checks the magic bytes and reads duration etc. from the blob's headers
+            audioInfo = audioStorageService.probeBlob(session.getBlobName(), size, session.getAudioFormat());
+            // Upload URLs cannot overwrite, so the verified content is what gets registered
+            StorageBackend.BlobInfo verified = storageBackend.head(session.getBlobName());
+            if (verified == null || !Objects.equals(verified.getEtag(), blob.getEtag())) {
+                throw new InvalidFileException("Audio file changed during verification. Please upload it again.");
+            }
+        } catch (RuntimeException e) {
+            discard(session);
+            throw e;
+        }
+
+        // Not content-addressed: the content was never hashed by the backend
+        AudioStorageService.StoredAudio audio = new AudioStorageService.StoredAudio(session.getBlobName(),
+                storageBackend.generateReadUrl(session.getBlobName()), size, null);
+        SongUploadResponse response;
+        try {
+            response = songService.createPendingSong(userId, session.getTitle(), session.getArtist(),
+                    audio, session.getAudioFormat(), audioInfo,
+                    new LyricsService.LyricsData(session.getRawLyrics(), session.getSyncedLyrics(),
+                            session.getSyncType()));
+        } catch (RuntimeException e) {
+            unclaim(session);
+            throw e;
+        }
+        uploadSessionRepository.delete(session);
+        return response;
+    }
+
+    /**
+     * Mark a session as being completed. Only one request can hold it; the others get a 409.
+     */
+    private UploadSession claim(String uploadId, String userId) {
+        Query query = Query.query(Criteria.where("_id").is(uploadId).and("userId").is(userId)
+                .and("completing").ne(true));
+        Update update = new Update().set("completing", true)
+                .max("expiresAt", LocalDateTime.now().plus(COMPLETION_TIMEOUT));
+        UploadSession session = mongoTemplate.findAndModify(query, update, UploadSession.class);
+        if (session == null) {
+            throw notClaimable(uploadId, userId);
+        }
+        // findAndModify returns the session as it was before the claim
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            discard(session);
+            throw new InvalidFileException("Upload session has expired. Please start the upload again.");
+        }
+        return session;
+    }
+
+    private RuntimeException notClaimable(String uploadId, String userId) {
+        return uploadSessionRepository.findByIdAndUserId(uploadId, userId)
+                .<RuntimeException>map(session -> new ConflictException("Upload is being completed"))
+                .orElseGet(() -> new ResourceNotFoundException("Upload", "id", uploadId));
+    }
+
+    private void unclaim(UploadSession session) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(session.getId())),
+                new Update().set("completing", false), UploadSession.class);
+    }
+
+    private void commitChunks(UploadSession session) {
+        List<String> blockIds = new ArrayList<>(session.getTotalChunks());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            UploadChunk chunk = session.getChunks().get(String.valueOf(i));
+            if (chunk == null) {
+                missing.add(i);
+            } else {
+                blockIds.add(chunk.getBlockId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new InvalidFileException("Upload is incomplete. Missing chunks: " + missing);
+        }
+        storageBackend.commitChunks(session.getBlobName(), blockIds);
+    }
+
+    /**
+     * Cancel an upload session and delete anything uploaded for it.
+     * Uncommitted chunks are discarded by Azure automatically.
+     */
+    public void cancel(String uploadId, String userId) {
+        UploadSession session = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(uploadId)
+                .and("userId").is(userId).and("completing").ne(true)), UploadSession.class);
+        if (session == null) {
+            throw notClaimable(uploadId, userId);
+        }
+        jobQueueService.deleteBlobLater(session.getBlobName(), null);
+    }
+
+    /**
+     * Remove expired sessions and their (never finalized) blobs.
+     */
+    @Scheduled(fixedDelayString = "${upload.sessions.cleanup-interval:PT5M}")
+    public void cleanupExpiredSessions() {
+        List<UploadSession> expired;
+        int removed = 0;
+        do {
+            expired = uploadSessionRepository.findByExpiresAtBefore(LocalDateTime.now(),
+                    PageRequest.of(0, CLEANUP_BATCH_SIZE));
+            for (UploadSession session : expired) {
+                try {
+                    discard(session);
+                    removed++;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to clean up upload session {}: {}", session.getId(), e.getMessage());
+                    return;
+                }
+            }
+        } while (expired.size() == CLEANUP_BATCH_SIZE);
+
+        if (removed > 0) {
+            log.info("Cleaned up {} expired upload sessions", removed);
+        }
+    }
+
+    private UploadSession getActiveSession(String uploadId, String userId) {
+        UploadSession session = uploadSessionRepository.findByIdAndUserId(uploadId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload", "id", uploadId));
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            discard(session);
+            throw new InvalidFileException("Upload session has expired. Please start the upload again.");
+        }
+        return session;
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        List<Integer> received = session.getChunks().values().stream()
+                .map(UploadChunk::getIndex)
+                .sorted()
+                .toList();
+        long receivedBytes = session.getChunks().values().stream()
+                .mapToLong(UploadChunk::getSize)
+                .sum();
+
+        return UploadSessionResponse.builder()
+                .uploadId(session.getId())
+                .chunkSize(session.getChunkSize())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(received)
+                .receivedBytes(receivedBytes)
+                .expiresAt(session.getExpiresAt())
+                .lyricsPreview(songService.getLyricsPreview(session.getSyncedLyrics(), session.getRawLyrics()))
+                .syncType(session.getSyncType())
+                .build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void discard(UploadSession session) {
+        jobQueueService.deleteBlobLater(session.getBlobName(), null);
+        uploadSessionRepository.delete(session);
+    }
+}
@@ -5,6 +5,7 @@ import com.leanius.dto.UserProfileResponse;
 import com.leanius.exception.ResourceNotFoundException;
 import com.leanius.model.User;
 import com.leanius.repository.UserRepository;
+import com.leanius.security.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final SongService songService;
+    private final CustomUserDetailsService userDetailsService;
 
     /**
      * Get user profile by ID.
@@ -53,6 +55,7 @@ public class UserService {
 
         user.setUpdatedAt(LocalDateTime.now());
         user = userRepository.save(user);
+        userDetailsService.evict(userId);
 
         log.info("Profile updated for user: {}", user.getEmail());
 
@@ -0,0 +1,581 @@
+package com.leanius.util;
+
+import com.leanius.exception.InvalidFileException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Header-only audio probe: reads duration, bitrate and sample rate from container
+ * headers and frame headers without decoding any audio.
+ *
+ * - MP3: skips ID3v2 tags, parses the first frame header and its Xing/Info or VBRI
+ *   header; CBR files without either are estimated from the file size.
+ * - FLAC: STREAMINFO block (sample rate and total samples).
+ * - WAV: fmt and data chunks.
+ * - Ogg (Vorbis/Opus): identification header of the first page and the granule
+ *   position of the last page.
+ *
+ * The probe is a push parser fed with the file bytes in order, so it can run inside an
+ * upload stream ({@link #tee(InputStream)}) and only holds a few bytes of state. Regions
+ * it does not need can be skipped ({@link #skipTo(long)}), which lets it work from a
+ * range read of the head (and, for Ogg, the tail) of a stored file.
+ *
+ * The magic bytes are checked against the expected format as soon as they are seen;
+ * a mismatch throws {@link InvalidFileException}. Not thread-safe; one probe per file.
+ */
+public final class AudioProbe {
+
+    private static final int[][] MPEG1_BITRATES = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448}, // Layer I
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},    // Layer II
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}      // Layer III
+    };
+    private static final int[][] MPEG2_BITRATES = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},    // Layer I
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},         // Layer II
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}          // Layer III
+    };
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    // Enough of the first MP3 frame to reach a Xing (offset <= 36) or VBRI (offset 36) header
+    private static final int MP3_FRAME_PROBE_BYTES = 56;
+    private static final int WAV_FMT_PROBE_BYTES = 16;
+    private static final int FLAC_STREAMINFO_BYTES = 34;
+    private static final int OGG_PAGE_HEADER_BYTES = 27;
+    private static final int OGG_ID_HEADER_BYTES = 19;
+    private static final int MAX_BUFFER = 512;
+    private static final int MAX_ID3_PADDING = 64 * 1024;
+
+    private enum State {
+        DETECT, ID3_HEADER, MP3_FRAME,
+        RIFF_HEADER, WAV_CHUNK_HEADER, WAV_FMT,
+        FLAC_BLOCK_HEADER, FLAC_STREAMINFO,
+        OGG_SYNC, OGG_PAGE_HEADER, OGG_SEGMENTS, OGG_ID_HEADER,
+        DONE
+    }
+
+    private final String expectedFormat;
+
+    private State state = State.DETECT;
+    private final byte[] buffer = new byte[MAX_BUFFER];
+    private int bufferLength;
+    private int need = 4;
+    private long skipRemaining;
+    private long position;
+
+    // Detected values
+    private String format;
+    private int sampleRate;
+    private int channels;
+    private int bitrate; // bits per second, when known from headers
+    private long audioStart; // offset of the first audio frame / data
+    private long frameCount = -1; // MP3 Xing/VBRI frame count
+    private int samplesPerFrame;
+    private long totalSamples = -1; // FLAC
+    private long dataSize = -1; // WAV
+    private int byteRate; // WAV
+    private long wavFmtRemainder;
+    private boolean id3Seen;
+    private int paddingScanned;
+    private boolean headerComplete;
+
+    // Ogg page walk
+    private int oggMatched;
+    private int oggPayloadLength;
+    private boolean oggIdentified;
+    private boolean opus;
+    private int opusPreSkip;
+    private long lastGranule = -1;
+
+    /**
+     * @param expectedFormat the format implied by the file extension (mp3, wav, ogg, flac),
+     *                       or null to accept any supported format
+     */
+    public AudioProbe(String expectedFormat) {
+        this.expectedFormat = expectedFormat != null ? expectedFormat.toLowerCase() : null;
+    }
+
+    /**
+     * Wrap a stream so that every byte read through it is fed to this probe.
+     */
+    public InputStream tee(InputStream inputStream) {
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    update(new byte[]{(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    update(b, off, read);
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Route skips through read() so the probe sees every byte
+                byte[] discard = new byte[(int) Math.min(n, 8192)];
+                int read = read(discard, 0, discard.length);
+                return Math.max(read, 0);
+            }
+        };
+    }
+
+    /**
+     * Feed the next bytes of the file.
+     */
+    public void update(byte[] data, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            if (state == State.DONE) {
+                position += end - offset;
+                return;
+            }
+            if (skipRemaining > 0) {
+                int skipped = (int) Math.min(skipRemaining, end - offset);
+                skipRemaining -= skipped;
+                position += skipped;
+                offset += skipped;
+                continue;
+            }
+            if (state == State.OGG_SYNC) {
+                offset = syncOgg(data, offset, end);
+                continue;
+            }
+            int copied = Math.min(need - bufferLength, end - offset);
+            System.arraycopy(data, offset, buffer, bufferLength, copied);
+            bufferLength += copied;
+            position += copied;
+            offset += copied;
+            if (bufferLength == need) {
+                handle();
+            }
+        }
+    }
+
+    /**
+     * Skip ahead to an absolute file offset without feeding the bytes in between.
+     * Only Ogg can resume a page walk at an arbitrary offset; other formats should only
+     * skip once {@link #isHeaderComplete()} or to {@link #nextOffset()}.
+     */
+    public void skipTo(long offset) {
+        if (offset <= position) {
+            return;
+        }
+        long jump = offset - position;
+        position = offset;
+        if (skipRemaining >= jump) {
+            skipRemaining -= jump;
+            return;
+        }
+        skipRemaining = 0;
+        if (isOgg() && state != State.DONE) {
+            // Resynchronize on the next page
+            state = State.OGG_SYNC;
+            oggMatched = 0;
+            bufferLength = 0;
+        } else if (state != State.DONE) {
+            bufferLength = 0;
+        }
+    }
+
+    /**
+     * Offset of the next byte the probe needs (past any region it skips).
+     */
+    public long nextOffset() {
+        return position + skipRemaining;
+    }
+
+    /**
+     * Whether the format parameters have been read. For Ogg the duration additionally
+     * needs the last page (see {@link #needsTail()}).
+     */
+    public boolean isHeaderComplete() {
+        return headerComplete;
+    }
+
+    /**
+     * Whether the duration depends on the end of the file (Ogg granule position).
+     */
+    public boolean needsTail() {
+        return isOgg();
+    }
+
+    /**
+     * Finish probing and compute the metadata.
+     *
+     * @param totalSize total file size in bytes
+     */
+    public AudioInfo finish(long totalSize) {
+        if (format == null) {
+            throw new InvalidFileException("File is not a supported audio file");
+        }
+        if (state == State.MP3_FRAME && bufferLength >= 4) {
+            // Tiny file: fewer bytes than the Xing probe window
+            parseMp3Frame();
+        }
+
+        long durationMs = 0;
+        switch (format) {
+            case "mp3" -> {
+                if (frameCount > 0 && sampleRate > 0) {
+                    durationMs = frameCount * samplesPerFrame * 1000L / sampleRate;
+                    bitrate = 0; // VBR: derive the average below
+                } else if (bitrate > 0) {
+                    durationMs = Math.max(0, totalSize - audioStart) * 8000L / bitrate;
+                }
+            }
+            case "flac" -> {
+                if (totalSamples > 0 && sampleRate > 0) {
+                    durationMs = totalSamples * 1000L / sampleRate;
+                }
+            }
+            case "wav" -> {
+                long size = dataSize > 0 && dataSize != 0xFFFFFFFFL ? dataSize : totalSize - audioStart;
+                if (byteRate > 0 && size > 0) {
+                    durationMs = size * 1000L / byteRate;
+                }
+            }
+            case "ogg" -> {
+                long rate = opus ? 48000 : sampleRate;
+                long samples = lastGranule - (opus ? opusPreSkip : 0);
+                if (rate > 0 && samples > 0) {
+                    durationMs = samples * 1000L / rate;
+                }
+            }
+            default -> {
+            }
+        }
+
+        int averageBitrate = bitrate;
+        if (averageBitrate <= 0 && durationMs > 0) {
+            averageBitrate = (int) Math.min(Integer.MAX_VALUE, Math.max(0, totalSize - audioStart) * 8000L / durationMs);
+        }
+        return new AudioInfo(format, durationMs, averageBitrate, sampleRate, channels);
+    }
+
+    private void handle() {
+        switch (state) {
+            case DETECT -> detect();
+            case ID3_HEADER -> {
+                // Syncsafe size (7 bits per byte), plus a 10-byte footer if flagged
+                long size = ((buffer[6] & 0x7F) << 21) | ((buffer[7] & 0x7F) << 14)
+                        | ((buffer[8] & 0x7F) << 7) | (buffer[9] & 0x7F);
+                boolean footer = (buffer[5] & 0x10) != 0;
+                skipRemaining = size + (footer ? 10 : 0);
+                expect(State.DETECT, 4);
+            }
+            case MP3_FRAME -> parseMp3Frame();
+            case RIFF_HEADER -> {
+                if (!matches(8, "WAVE")) {
+                    throw invalid();
+                }
+                expect(State.WAV_CHUNK_HEADER, 8);
+            }
+            case WAV_CHUNK_HEADER -> {
+                long size = readIntLE(4) & 0xFFFFFFFFL;
+                if (matches(0, "fmt ") && size >= WAV_FMT_PROBE_BYTES) {
+                    wavFmtRemainder = size - WAV_FMT_PROBE_BYTES + (size & 1);
+                    expect(State.WAV_FMT, WAV_FMT_PROBE_BYTES);
+                } else if (matches(0, "data")) {
+                    dataSize = size;
+                    audioStart = position;
+                    headerComplete = byteRate > 0;
+                    state = State.DONE;
+                } else {
+                    skipRemaining = size + (size & 1);
+                    expect(State.WAV_CHUNK_HEADER, 8);
+                }
+            }
+            case WAV_FMT -> {
+                channels = readShortLE(2);
+                sampleRate = readIntLE(4);
+                byteRate = readIntLE(8);
+                bitrate = byteRate * 8;
+                expect(State.WAV_CHUNK_HEADER, 8);
+                skipRemaining = wavFmtRemainder;
+            }
+            case FLAC_BLOCK_HEADER -> {
+                int type = buffer[0] & 0x7F;
+                int length = ((buffer[1] & 0xFF) << 16) | ((buffer[2] & 0xFF) << 8) | (buffer[3] & 0xFF);
+                if (type == 0 && length >= FLAC_STREAMINFO_BYTES) {
+                    expect(State.FLAC_STREAMINFO, FLAC_STREAMINFO_BYTES);
+                } else if ((buffer[0] & 0x80) == 0) {
+                    skipRemaining = length;
+                    expect(State.FLAC_BLOCK_HEADER, 4);
+                } else {
+                    state = State.DONE;
+                }
+            }
+            case FLAC_STREAMINFO -> {
+                // 20 bits sample rate, 3 bits channels - 1, 5 bits bits per sample - 1, 36 bits total samples
+                long packed = 0;
+                for (int i = 10; i < 18; i++) {
+                    packed = (packed << 8) | (buffer[i] & 0xFF);
+                }
+                sampleRate = (int) (packed >>> 44);
+                channels = (int) ((packed >>> 41) & 0x7) + 1;
+                totalSamples = packed & 0xFFFFFFFFFL;
+                headerComplete = true;
+                state = State.DONE;
+            }
+            case OGG_PAGE_HEADER -> {
+                if (!matches(0, "OggS") || buffer[4] != 0 || (buffer[5] & 0xF8) != 0) {
+                    // False sync inside payload data: search again
+                    expect(State.OGG_SYNC, 0);
+                    return;
+                }
+                long granule = readLongLE(6);
+                if (granule != -1) {
+                    lastGranule = granule;
+                }
+                expect(State.OGG_SEGMENTS, OGG_PAGE_HEADER_BYTES + (buffer[26] & 0xFF));
+                // Keep the header in the buffer; the segment table follows it
+                bufferLength = OGG_PAGE_HEADER_BYTES;
+            }
+            case OGG_SEGMENTS -> {
+                int segments = buffer[26] & 0xFF;
+                int payload = 0;
+                for (int i = 0; i < segments; i++) {
+                    payload += buffer[OGG_PAGE_HEADER_BYTES + i] & 0xFF;
+                }
+                oggPayloadLength = payload;
+                if (!oggIdentified && payload >= OGG_ID_HEADER_BYTES) {
+                    skipRemaining = 0;
+                    expect(State.OGG_ID_HEADER, OGG_ID_HEADER_BYTES);
+                } else {
+                    skipRemaining = payload;
+                    expect(State.OGG_PAGE_HEADER, OGG_PAGE_HEADER_BYTES);
+                }
+            }
+            case OGG_ID_HEADER -> {
+                if (buffer[0] == 0x01 && matches(1, "vorbis")) {
+                    // 0x01 "vorbis" version(4) channels(1) rate(4) bitrate max(4) nominal(4)
+                    channels = buffer[11] & 0xFF;
+                    sampleRate = readIntLE(12);
+                } else if (matches(0, "OpusHead")) {
+                    // "OpusHead" version(1) channels(1) pre-skip(2) input rate(4)
+                    opus = true;
+                    channels = buffer[9] & 0xFF;
+                    opusPreSkip = readShortLE(10);
+                    sampleRate = readIntLE(12);
+                }
+                oggIdentified = true;
+                headerComplete = sampleRate > 0;
+                skipRemaining = oggPayloadLength - OGG_ID_HEADER_BYTES;
+                expect(State.OGG_PAGE_HEADER, OGG_PAGE_HEADER_BYTES);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void detect() {
+        if (matches(0, "ID3")) {
+            // A FLAC file may also start with an ID3 tag
+            id3Seen = true;
+            expect(State.ID3_HEADER, 10);
+            bufferLength = 4;
+        } else if (matches(0, "fLaC")) {
+            detected("flac");
+            expect(State.FLAC_BLOCK_HEADER, 4);
+        } else if (matches(0, "RIFF")) {
+            detected("wav");
+            expect(State.RIFF_HEADER, 12);
+            bufferLength = 4;
+        } else if (matches(0, "OggS")) {
+            detected("ogg");
+            expect(State.OGG_PAGE_HEADER, OGG_PAGE_HEADER_BYTES);
+            bufferLength = 4;
+        } else if ((buffer[0] & 0xFF) == 0xFF && (buffer[1] & 0xE0) == 0xE0) {
+            detected("mp3");
+            audioStart = position - 4;
+            expect(State.MP3_FRAME, MP3_FRAME_PROBE_BYTES);
+            bufferLength = 4;
+        } else if (id3Seen && paddingScanned++ < MAX_ID3_PADDING) {
+            // Encoders may pad between the ID3 tag and the first frame: slide by one byte
+            System.arraycopy(buffer, 1, buffer, 0, 3);
+            bufferLength = 3;
+        } else {
+            throw invalid();
+        }
+    }
+
+    private void parseMp3Frame() {
+        int version = (buffer[1] >> 3) & 0x3; // 0 = MPEG 2.5, 2 = MPEG 2, 3 = MPEG 1
+        int layer = (buffer[1] >> 1) & 0x3;   // 1 = III, 2 = II, 3 = I
+        int bitrateIndex = (buffer[2] >> 4) & 0xF;
+        int sampleRateIndex = (buffer[2] >> 2) & 0x3;
+        boolean mono = ((buffer[3] >> 6) & 0x3) == 3;
+        if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            throw invalid();
+        }
+
+        boolean mpeg1 = version == 3;
+        int layerIndex = 3 - layer; // 0 = I, 1 = II, 2 = III
+        bitrate = (mpeg1 ? MPEG1_BITRATES : MPEG2_BITRATES)[layerIndex][bitrateIndex] * 1000;
+        sampleRate = MPEG1_SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+        channels = mono ? 1 : 2;
+        samplesPerFrame = layer == 3 ? 384 : (layer == 1 && !mpeg1) ? 576 : 1152;
+
+        // Xing/Info header follows the side information of the first frame
+        int xingOffset = 4 + (mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        if (bufferLength >= xingOffset + 12 && (matches(xingOffset, "Xing") || matches(xingOffset, "Info"))) {
+            int flags = readIntBE(xingOffset + 4);
+            if ((flags & 0x1) != 0) {
+                frameCount = readIntBE(xingOffset + 8) & 0xFFFFFFFFL;
+            }
+            // The Xing frame itself carries no audio
+            audioStart += frameLength(mpeg1, layer);
+        } else if (bufferLength >= 36 + 18 && matches(36, "VBRI")) {
+            frameCount = readIntBE(36 + 14) & 0xFFFFFFFFL;
+            audioStart += frameLength(mpeg1, layer);
+        }
+        headerComplete = true;
+        state = State.DONE;
+    }
+
+    private int frameLength(boolean mpeg1, int layer) {
+        if (sampleRate <= 0 || bitrate <= 0) {
+            return 0;
+        }
+        if (layer == 3) {
+            return (12 * bitrate / sampleRate) * 4;
+        }
+        int coefficient = (layer == 1 && !mpeg1) ? 72 : 144;
+        return coefficient * bitrate / sampleRate;
+    }
+
+    /**
+     * Scan for the "OggS" capture pattern after a skip into the middle of a file.
+     */
+    private int syncOgg(byte[] data, int offset, int end) {
+        while (offset < end) {
+            byte b = data[offset++];
+            position++;
+            if (b == "OggS".charAt(oggMatched)) {
+                oggMatched++;
+                if (oggMatched == 4) {
+                    oggMatched = 0;
+                    System.arraycopy(new byte[]{'O', 'g', 'g', 'S'}, 0, buffer, 0, 4);
+                    state = State.OGG_PAGE_HEADER;
+                    need = OGG_PAGE_HEADER_BYTES;
+                    bufferLength = 4;
+                    return offset;
+                }
+            } else {
+                oggMatched = b == 'O' ? 1 : 0;
+            }
+        }
+        return offset;
+    }
+
+    private void detected(String detectedFormat) {
+        if (expectedFormat != null && !expectedFormat.equals(detectedFormat)) {
+            throw invalid();
+        }
+        format = detectedFormat;
+    }
+
+    private void expect(State next, int bytes) {
+        state = next;
+        need = bytes;
+        bufferLength = 0;
+        if (next == State.OGG_SYNC) {
+            oggMatched = 0;
+        }
+    }
+
+    private boolean isOgg() {
+        return "ogg".equals(format);
+    }
+
+    private InvalidFileException invalid() {
+        return new InvalidFileException("File content does not match its format. Please upload an audio file.");
+    }
+
+    private boolean matches(int offset, String magic) {
+        if (bufferLength < offset + magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if (buffer[offset + i] != (byte) magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int readShortLE(int offset) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8);
+    }
+
+    private int readIntLE(int offset) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8)
+                | ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 24);
+    }
+
+    private int readIntBE(int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+    private long readLongLE(int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (buffer[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Audio metadata read from the headers.
+     */
+    public static class AudioInfo {
+        private final String format;
+        private final long durationMs;
+        private final int bitrate;
+        private final int sampleRate;
+        private final int channels;
+
+        public AudioInfo(String format, long durationMs, int bitrate, int sampleRate, int channels) {
+            this.format = format;
+            this.durationMs = durationMs;
+            this.bitrate = bitrate;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * Average bitrate in bits per second.
+         */
+        public int getBitrate() {
+            return bitrate;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+    }
+}
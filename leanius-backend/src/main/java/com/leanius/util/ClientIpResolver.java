@@ -0,0 +1,47 @@
+package com.leanius.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the client IP behind a fixed number of trusted reverse proxies.
+ *
+ * Each proxy appends the address it received the request from to X-Forwarded-For, so the entry
+ * {@code trusted-proxy-hops} from the end is the client as seen by the outermost trusted proxy.
+ * Entries further left are client-supplied and ignored.
+ */
+@Component
+public class ClientIpResolver {
+
+    private final int trustedProxyHops;
+
+    public ClientIpResolver(@Value("${client-ip.trusted-proxy-hops:0}") int trustedProxyHops) {
+        this.trustedProxyHops = trustedProxyHops;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (trustedProxyHops <= 0 || forwardedFor == null || forwardedFor.isBlank()) {
+            return request.getRemoteAddr();
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = hops[Math.max(0, hops.length - trustedProxyHops)].trim();
+        return stripPort(client);
+    }
+
+    /**
+     * Azure App Service forwards "ip:port"; IPv6 addresses with a port are bracketed.
+     */
+    private static String stripPort(String address) {
+        if (address.startsWith("[")) {
+            int end = address.indexOf(']');
+            return end > 0 ? address.substring(1, end) : address;
+        }
+        int colon = address.indexOf(':');
+        if (colon > 0 && colon == address.lastIndexOf(':')) {
+            return address.substring(0, colon);
+        }
+        return address;
+    }
+}
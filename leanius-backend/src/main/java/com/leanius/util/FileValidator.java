@@ -33,21 +33,32 @@ public class FileValidator {
         if (file == null || file.isEmpty()) {
             throw new InvalidFileException("File is required");
         }
+        validateAudioUpload(file.getOriginalFilename(), file.getContentType(), file.getSize());
+    }
+
+    /**
+     * Validate the metadata of an audio upload before its content is read.
+     * A negative size means the length is not known up front (chunked request body);
+     * the limit is then enforced while streaming.
+     */
+    public void validateAudioUpload(String filename, String contentType, long size) {
+        if (size == 0) {
+            throw new InvalidFileException("File is required");
+        }
 
         // Check file size
-        if (file.getSize() > MAX_FILE_SIZE) {
+        if (size > MAX_FILE_SIZE) {
             throw new InvalidFileException("File size exceeds the maximum allowed limit of 100MB");
         }
 
         // Check file extension
-        String extension = getFileExtension(file.getOriginalFilename());
+        String extension = getFileExtension(filename);
         if (!ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
             throw new InvalidFileException(
                     "Invalid file format. Allowed formats: " + String.join(", ", ALLOWED_EXTENSIONS));
         }
 
         // Check MIME type
-        String contentType = file.getContentType();
         if (contentType != null && !isValidAudioMimeType(contentType)) {
             throw new InvalidFileException("Invalid file type. Please upload an audio file.");
         }
@@ -78,6 +89,22 @@ public class FileValidator {
         return filename.substring(lastDotIndex + 1).toLowerCase();
     }
 
+    /**
+     * Content type to serve an audio format (file extension) with.
+     */
+    public String getContentType(String format) {
+        if (format == null) {
+            return "application/octet-stream";
+        }
+        return switch (format.toLowerCase()) {
+            case "mp3" -> "audio/mpeg";
+            case "wav" -> "audio/wav";
+            case "ogg" -> "audio/ogg";
+            case "flac" -> "audio/flac";
+            default -> "application/octet-stream";
+        };
+    }
+
     /**
      * Get allowed file extensions.
      */
@@ -1,106 +1,262 @@
 package com.leanius.util;
 
 import com.leanius.model.LyricLine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for parsing LRC format lyrics.
+ *
+ * The parser is a single-pass character scanner: no regex, no String.split and
+ * no boxed timestamps. Only the resulting LyricLine objects and their text are allocated.
+ *
+ * Parses of whole strings are timed in {@code lyrics.parse}; the line count of every parse,
+ * including streamed ones, is recorded in {@code lyrics.parse.lines}.
  */
 @Slf4j
 @Component
 public class LyricsParser {
 
-    // LRC format: [mm:ss.xx] or [mm:ss:xx] text
-    private static final Pattern LRC_LINE_PATTERN = Pattern.compile("\\[(\\d{2}):(\\d{2})[.:](\\d{2,3})](.*)");
+    private static final Comparator<LyricLine> BY_START_TIME = Comparator.comparingLong(LyricLine::getStartTimeMs);
+
+    // Rough average LRC line length, used to pre-size the result list
+    private static final int ESTIMATED_CHARS_PER_LINE = 32;
+
+    private final Timer parseTimer;
+    private final DistributionSummary parsedLines;
+
+    public LyricsParser(MeterRegistry meterRegistry) {
+        this.parseTimer = Timer.builder("lyrics.parse")
+                .description("Time to parse LRC lyrics held in memory")
+                .register(meterRegistry);
+        this.parsedLines = DistributionSummary.builder("lyrics.parse.lines")
+                .description("Lyric lines per parse")
+                .register(meterRegistry);
+    }
 
     /**
      * Parse LRC format lyrics into a list of LyricLine objects.
-     * 
+     *
      * Example input:
      * [00:00.96]One, two, three, four
      * [00:04.02]Ooh-ooh, ooh-ooh-ooh
-     * 
+     *
      * Example output:
      * [
      *   { startTimeMs: 960, text: "One, two, three, four" },
      *   { startTimeMs: 4020, text: "Ooh-ooh, ooh-ooh-ooh" }
      * ]
+     *
+     * Supports multiple timestamps per line ([00:01.00][00:30.00]Chorus), centisecond
+     * and millisecond fractions, and the [offset:] tag. Other metadata lines are skipped.
      */
     public List<LyricLine> parseLRCFormat(String lrcContent) {
-        List<LyricLine> lyrics = new ArrayList<>();
-
         if (lrcContent == null || lrcContent.isEmpty()) {
-            return lyrics;
+            return new ArrayList<>();
         }
 
-        String[] lines = lrcContent.split("\n");
-
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) {
-                continue;
+        long start = System.nanoTime();
+        Session session = newSession(lrcContent.length() / ESTIMATED_CHARS_PER_LINE);
+        int length = lrcContent.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lrcContent.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
             }
+            session.acceptLine(lrcContent, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+
+        List<LyricLine> lyrics = session.finish();
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Parsed {} lyric lines from LRC content", lyrics.size());
+        return lyrics;
+    }
+
+    /**
+     * Start an incremental parse. Lines are fed one at a time (e.g., as they are decoded
+     * from a network stream) and the sorted result is produced by {@link Session#finish()}.
+     */
+    public Session newSession(int expectedLines) {
+        return new Session(expectedLines, parsedLines);
+    }
+
+    /**
+     * Parse a single LRC line in {@code [start, end)} of the given content into the session.
+     */
+    private static void parseLine(CharSequence content, int start, int end, Session state) {
+        // Trim surrounding whitespace (including the '\r' of CRLF line endings)
+        while (start < end && content.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && content.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
 
-            // Handle multiple timestamps on same line (e.g., [00:00.00][00:05.00]Text)
-            List<Long> timestamps = new ArrayList<>();
-            String text = line;
-
-            Matcher matcher = LRC_LINE_PATTERN.matcher(line);
-            while (matcher.find()) {
-                try {
-                    int minutes = Integer.parseInt(matcher.group(1));
-                    int seconds = Integer.parseInt(matcher.group(2));
-                    String msString = matcher.group(3);
-                    int milliseconds;
-                    
-                    // Handle both [mm:ss.xx] (centiseconds) and [mm:ss.xxx] (milliseconds)
-                    if (msString.length() == 2) {
-                        milliseconds = Integer.parseInt(msString) * 10; // Convert centiseconds to ms
-                    } else {
-                        milliseconds = Integer.parseInt(msString);
-                    }
-
-                    long startTimeMs = (minutes * 60L * 1000L) + (seconds * 1000L) + milliseconds;
-                    timestamps.add(startTimeMs);
-                    text = matcher.group(4).trim();
-                } catch (NumberFormatException e) {
-                    log.warn("Failed to parse LRC timestamp: {}", line);
+        // Collect the leading timestamp tags (e.g., [00:00.00][00:05.00]Text)
+        state.timestampCount = 0;
+        int pos = start;
+        while (pos < end && content.charAt(pos) == '[') {
+            int close = indexOf(content, ']', pos + 1, end);
+            if (close < 0) {
+                break;
+            }
+            long timestamp = parseTimestamp(content, pos + 1, close);
+            if (timestamp < 0) {
+                // Not a timestamp: a metadata line like [ti:Title] [ar:Artist] etc.
+                if (state.timestampCount == 0) {
+                    parseMetadata(content, pos + 1, close, state);
+                    return;
                 }
+                break;
             }
+            state.addTimestamp(timestamp);
+            pos = close + 1;
+        }
 
-            // Skip metadata lines like [ti:Title] [ar:Artist] etc.
-            if (text.isEmpty() || isMetadataLine(line)) {
-                continue;
-            }
+        if (state.timestampCount == 0) {
+            return;
+        }
 
-            // Create a LyricLine for each timestamp
-            for (Long timestamp : timestamps) {
-                lyrics.add(LyricLine.builder()
-                        .startTimeMs(timestamp)
-                        .text(text)
-                        .build());
-            }
+        while (pos < end && content.charAt(pos) <= ' ') {
+            pos++;
+        }
+        if (pos == end) {
+            return;
         }
 
-        // Sort by timestamp
-        lyrics.sort((a, b) -> Long.compare(a.getStartTimeMs(), b.getStartTimeMs()));
+        // Create a LyricLine for each timestamp, sharing the same text instance
+        String text = content.subSequence(pos, end).toString();
+        for (int i = 0; i < state.timestampCount; i++) {
+            state.add(state.timestamps[i], text);
+        }
+    }
 
-        log.debug("Parsed {} lyric lines from LRC content", lyrics.size());
-        return lyrics;
+    /**
+     * Parse the inside of a timestamp tag: mm:ss, mm:ss.x, mm:ss.xx, mm:ss.xxx (or ':' as fraction separator).
+     *
+     * @return the timestamp in milliseconds, or -1 if the tag is not a timestamp
+     */
+    private static long parseTimestamp(CharSequence content, int start, int end) {
+        int pos = start;
+
+        long minutes = 0;
+        int minuteDigits = 0;
+        while (pos < end && isDigit(content.charAt(pos))) {
+            minutes = minutes * 10 + (content.charAt(pos) - '0');
+            minuteDigits++;
+            pos++;
+        }
+        if (minuteDigits == 0 || minuteDigits > 3 || pos >= end || content.charAt(pos) != ':') {
+            return -1;
+        }
+        pos++;
+
+        int seconds = 0;
+        int secondDigits = 0;
+        while (pos < end && isDigit(content.charAt(pos))) {
+            seconds = seconds * 10 + (content.charAt(pos) - '0');
+            secondDigits++;
+            pos++;
+        }
+        if (secondDigits == 0 || secondDigits > 2 || seconds >= 60) {
+            return -1;
+        }
+
+        int milliseconds = 0;
+        if (pos < end) {
+            char separator = content.charAt(pos);
+            if (separator != '.' && separator != ':') {
+                return -1;
+            }
+            pos++;
+            int fractionDigits = end - pos;
+            if (fractionDigits < 1 || fractionDigits > 3) {
+                return -1;
+            }
+            int fraction = 0;
+            for (; pos < end; pos++) {
+                char c = content.charAt(pos);
+                if (!isDigit(c)) {
+                    return -1;
+                }
+                fraction = fraction * 10 + (c - '0');
+            }
+            // Handle [mm:ss.x] (tenths), [mm:ss.xx] (centiseconds) and [mm:ss.xxx] (milliseconds)
+            milliseconds = fractionDigits == 1 ? fraction * 100 : fractionDigits == 2 ? fraction * 10 : fraction;
+        }
+
+        return (minutes * 60L * 1000L) + (seconds * 1000L) + milliseconds;
     }
 
     /**
-     * Check if a line is an LRC metadata line.
+     * Handle a metadata tag. Only [offset:] affects timing; [ti:], [ar:], [al:], [length:] etc. are ignored.
      */
-    private boolean isMetadataLine(String line) {
-        // Common metadata tags: [ti:], [ar:], [al:], [au:], [length:], [by:], [offset:], [re:], [ve:]
-        return line.matches("\\[(ti|ar|al|au|length|by|offset|re|ve):.*]");
+    private static void parseMetadata(CharSequence content, int start, int end, Session state) {
+        int colon = indexOf(content, ':', start, end);
+        if (colon < 0 || !regionMatchesIgnoreCase(content, start, colon, "offset")) {
+            return;
+        }
+
+        int pos = colon + 1;
+        while (pos < end && content.charAt(pos) == ' ') {
+            pos++;
+        }
+        boolean negative = false;
+        if (pos < end && (content.charAt(pos) == '+' || content.charAt(pos) == '-')) {
+            negative = content.charAt(pos) == '-';
+            pos++;
+        }
+        long offset = 0;
+        int digits = 0;
+        while (pos < end && isDigit(content.charAt(pos)) && digits < 9) {
+            offset = offset * 10 + (content.charAt(pos) - '0');
+            digits++;
+            pos++;
+        }
+        if (digits > 0) {
+            state.offsetMs = negative ? -offset : offset;
+        } else {
+            log.warn("Failed to parse LRC offset tag: {}", content.subSequence(start, end));
+        }
+    }
+
+    private static int indexOf(CharSequence content, char target, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (content.charAt(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence content, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(content.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     /**
@@ -111,7 +267,7 @@ public class LyricsParser {
         long minutes = totalSeconds / 60;
         long seconds = totalSeconds % 60;
         long centiseconds = (milliseconds % 1000) / 10;
-        
+
         return String.format("[%02d:%02d.%02d]", minutes, seconds, centiseconds);
     }
 
@@ -125,14 +281,75 @@ public class LyricsParser {
 
         StringBuilder preview = new StringBuilder();
         int count = Math.min(lyrics.size(), lines);
-        
+
         for (int i = 0; i < count; i++) {
             if (i > 0) {
                 preview.append("\n");
             }
             preview.append(lyrics.get(i).getText());
         }
-        
+
         return preview.toString();
     }
+
+    /**
+     * Mutable state for a single parse: the output list, the [offset:] tag,
+     * a reusable timestamp buffer and whether the output is still in order.
+     * Not thread-safe; use one session per parse.
+     */
+    public static final class Session {
+
+        private final List<LyricLine> lyrics;
+        private final DistributionSummary parsedLines;
+        private long[] timestamps = new long[4];
+        private int timestampCount;
+        private long offsetMs;
+        private long lastStartTimeMs = Long.MIN_VALUE;
+        private boolean sorted = true;
+
+        private Session(int expectedLines, DistributionSummary parsedLines) {
+            this.lyrics = new ArrayList<>(Math.max(16, expectedLines));
+            this.parsedLines = parsedLines;
+        }
+
+        /**
+         * Parse one LRC line located in {@code [start, end)} of the given content.
+         */
+        public void acceptLine(CharSequence content, int start, int end) {
+            parseLine(content, start, end, this);
+        }
+
+        private void addTimestamp(long timestamp) {
+            if (timestampCount == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, timestampCount * 2);
+            }
+            timestamps[timestampCount++] = timestamp;
+        }
+
+        private void add(long startTimeMs, String text) {
+            if (startTimeMs < lastStartTimeMs) {
+                sorted = false;
+            }
+            lastStartTimeMs = startTimeMs;
+            lyrics.add(new LyricLine(startTimeMs, text));
+        }
+
+        /**
+         * Apply the [offset:] tag and return the lines ordered by start time.
+         */
+        public List<LyricLine> finish() {
+            // Positive offset = lyrics appear earlier (LRC convention)
+            if (offsetMs != 0) {
+                for (LyricLine line : lyrics) {
+                    line.setStartTimeMs(Math.max(0, line.getStartTimeMs() - offsetMs));
+                }
+            }
+            // Sort by timestamp, unless the input was already in order
+            if (!sorted) {
+                lyrics.sort(BY_START_TIME);
+            }
+            parsedLines.record(lyrics.size());
+            return lyrics;
+        }
+    }
 }
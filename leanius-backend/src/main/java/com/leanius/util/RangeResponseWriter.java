@@ -0,0 +1,216 @@
+package com.leanius.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes a local file as an HTTP response with full {@code Range} support:
+ * 200 for the whole file, 206 for one range, 206 multipart/byteranges for several,
+ * 416 for unsatisfiable ranges, plus ETag, If-Range, If-None-Match and HEAD.
+ *
+ * Bodies are sent zero-copy: through Tomcat's sendfile when the connector supports it,
+ * otherwise with {@link FileChannel#transferTo} into the response stream.
+ */
+@Component
+public class RangeResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // More ranges than this are answered with the whole file
+    private static final int MAX_RANGES = 16;
+
+    private final Counter sendfileBytes;
+    private final Counter channelBytes;
+
+    public RangeResponseWriter(MeterRegistry meterRegistry) {
+        this.sendfileBytes = Counter.builder("audio.served.bytes").tag("transfer", "sendfile")
+                .baseUnit("bytes").description("Audio bytes served").register(meterRegistry);
+        this.channelBytes = Counter.builder("audio.served.bytes").tag("transfer", "channel")
+                .baseUnit("bytes").description("Audio bytes served").register(meterRegistry);
+    }
+
+    /**
+     * Write {@code file} (of {@code length} bytes) honouring the request's range headers.
+     *
+     * @param etag strong entity tag of the content, without quotes
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Path file, long length,
+                      String contentType, String etag) throws IOException {
+        write(request, response, file, null, length, contentType, etag);
+    }
+
+    /**
+     * Same as {@link #write(HttpServletRequest, HttpServletResponse, Path, long, String, String)},
+     * reading from a channel the caller has already opened (and closes), so the body is still
+     * sent if the file is deleted meanwhile. Only sendfile opens the file again, by name.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Path file, FileChannel channel,
+                      long length, String contentType, String etag) throws IOException {
+        String quotedEtag = "\"" + etag + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, quotedEtag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+
+        if (quotedEtag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        List<long[]> ranges;
+        try {
+            ranges = parseRanges(request, length, quotedEtag);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            send(request, response, file, channel, 0, length, head);
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            send(request, response, file, channel, start, end + 1, head);
+        } else {
+            String boundary = UUID.randomUUID().toString();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            if (!head) {
+                sendMultipart(response, file, channel, length, contentType, boundary, ranges);
+            }
+        }
+    }
+
+    /**
+     * Satisfiable ranges as inclusive [start, end] pairs; empty to send the whole file,
+     * which includes a malformed header (RFC 9110 says to ignore it).
+     *
+     * @throws IllegalArgumentException if no range is satisfiable
+     */
+    static List<long[]> parseRanges(HttpServletRequest request, long length, String quotedEtag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return List.of();
+        }
+        // A stale If-Range means the client's partial copy is outdated: send everything
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(quotedEtag)) {
+            return List.of();
+        }
+
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+        if (httpRanges.size() > MAX_RANGES) {
+            return List.of();
+        }
+        List<long[]> ranges = new ArrayList<>(httpRanges.size());
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            long start = httpRange.getRangeStart(length);
+            if (start >= length) {
+                continue;
+            }
+            long end = Math.min(httpRange.getRangeEnd(length), length - 1);
+            ranges.add(new long[]{start, end});
+            total += end - start + 1;
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range in: " + header);
+        }
+        // Overlapping ranges adding up to more than the file are not worth honouring
+        return total > length ? List.of() : ranges;
+    }
+
+    /**
+     * Send {@code [start, end)} of the file as the whole response body.
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file, FileChannel channel,
+                      long start, long end, boolean head) throws IOException {
+        response.setContentLengthLong(end - start);
+        if (head || end == start) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector writes the file after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            sendfileBytes.increment(end - start);
+            return;
+        }
+        if (channel != null) {
+            transfer(channel, start, end - start, Channels.newChannel(response.getOutputStream()));
+            return;
+        }
+        try (FileChannel opened = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(opened, start, end - start, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private void sendMultipart(HttpServletResponse response, Path file, FileChannel channel, long length,
+                               String contentType, String boundary, List<long[]> ranges) throws IOException {
+        if (channel == null) {
+            try (FileChannel opened = FileChannel.open(file, StandardOpenOption.READ)) {
+                sendMultipart(response, file, opened, length, contentType, boundary, ranges);
+            }
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        for (long[] range : ranges) {
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], length) + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            transfer(channel, range[0], range[1] - range[0] + 1, target);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long written = channel.transferTo(position + sent, count - sent, target);
+            if (written <= 0) {
+                throw new IOException("File ended before the requested range was sent");
+            }
+            sent += written;
+        }
+        channelBytes.increment(sent);
+    }
+
+    private static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+}
@@ -0,0 +1,94 @@
+package com.leanius.client;
+
+import com.leanius.model.LyricLine;
+import com.leanius.util.LyricsParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LRCLibStreamingDecoderTest {
+
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private final LyricsParser parser = new LyricsParser(new SimpleMeterRegistry());
+
+    @Test
+    void decodesFieldsAndSyncedLines() {
+        String json = "{\"id\": 42, \"trackName\": \"Song \\\"A\\\"\", \"artistName\": \"Artist\","
+                + " \"duration\": 215.6, \"instrumental\": false, \"plainLyrics\": \"x\\ny\","
+                + " \"tags\": {\"name\": \"nested\", \"list\": [1, 2]},"
+                + " \"syncedLyrics\": \"[00:01.00]First\\n[00:02.50]Second\\r\\n\"}";
+
+        LRCLibClient.LRCLibResponse response = decode(bytes(json));
+
+        assertThat(response.getId()).isEqualTo(42L);
+        assertThat(response.getTrackName()).isEqualTo("Song \"A\"");
+        assertThat(response.getArtistName()).isEqualTo("Artist");
+        assertThat(response.getName()).isNull();
+        assertThat(response.getDuration()).isEqualTo(216);
+        assertThat(response.getInstrumental()).isFalse();
+        assertThat(response.getPlainLyrics()).isEqualTo("x\ny");
+        assertThat(response.getSyncedLines()).extracting(LyricLine::getStartTimeMs, LyricLine::getText)
+                .containsExactly(tuple(1_000L, "First"), tuple(2_500L, "Second"));
+    }
+
+    @Test
+    void keepsMultiByteCharactersSplitAcrossBuffers() {
+        byte[] json = bytes("{\"syncedLyrics\": \"[00:01.00]Grüße 🎵\"}");
+        LRCLibStreamingDecoder decoder = new LRCLibStreamingDecoder(parser.newSession(4), MAX_BYTES);
+        // Feed one byte per buffer, so every multi-byte sequence is split
+        for (byte b : json) {
+            decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(new byte[] {b}));
+        }
+
+        assertThat(decoder.finish().getSyncedLines()).extracting(LyricLine::getText).containsExactly("Grüße 🎵");
+    }
+
+    @Test
+    void decodesUnicodeEscapesIncludingSurrogatePairs() {
+        String json = "{\"syncedLyrics\": \"[00:01.00]caf\\u00e9 \\ud83c\\udfb5\\u000a[00:02.00]next\"}";
+
+        LRCLibClient.LRCLibResponse response = decode(bytes(json));
+
+        assertThat(response.getSyncedLines()).extracting(LyricLine::getText).containsExactly("café 🎵", "next");
+    }
+
+    @Test
+    void leavesSyncedLinesNullWithoutSyncedLyrics() {
+        LRCLibClient.LRCLibResponse response = decode(bytes("{\"syncedLyrics\": null, \"id\": 1}"));
+
+        assertThat(response.getSyncedLines()).isNull();
+        assertThat(response.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void rejectsResponsesOverTheLimit() {
+        byte[] json = bytes("{\"plainLyrics\": \"" + "a".repeat(100) + "\"}");
+        LRCLibStreamingDecoder decoder = new LRCLibStreamingDecoder(parser.newSession(4), 64);
+
+        assertThatThrownBy(() -> {
+            decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(json, 0, 60)));
+            decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(json, 60, json.length)));
+        }).isInstanceOf(DataBufferLimitException.class);
+    }
+
+    private LRCLibClient.LRCLibResponse decode(byte[]... chunks) {
+        LRCLibStreamingDecoder decoder = new LRCLibStreamingDecoder(parser.newSession(4), MAX_BYTES);
+        for (byte[] chunk : chunks) {
+            decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+        return decoder.finish();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package com.leanius.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbedRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsTheBurstThenReportsTheWait() {
+        EmbedRateLimiter limiter = limiter(1, 3, 1_000, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1", null)).isZero();
+        }
+        long wait = limiter.tryAcquire("10.0.0.1", null);
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+        assertThat(rejected("ip")).isEqualTo(1);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        EmbedRateLimiter limiter = limiter(10, 2, 1_000, 1_000);
+        limiter.tryAcquire("10.0.0.9", null); // Warm up, so the first call does not outlast a refill
+        limiter.tryAcquire("10.0.0.1", null);
+        limiter.tryAcquire("10.0.0.1", null);
+        long wait = limiter.tryAcquire("10.0.0.1", null);
+        assertThat(wait).isPositive();
+
+        Thread.sleep(Duration.ofNanos(wait).toMillis() + 20);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", null)).isZero();
+    }
+
+    @Test
+    void limitsEachKeyAndEachIpOnItsOwn() {
+        EmbedRateLimiter limiter = limiter(1_000, 1_000, 1, 2);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "key-a")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.2", "key-a")).isZero();
+        // Same key from a third IP: the key's bucket is empty
+        assertThat(limiter.tryAcquire("10.0.0.3", "key-a")).isPositive();
+        assertThat(limiter.tryAcquire("10.0.0.3", "key-b")).isZero();
+
+        assertThat(rejected("key")).isEqualTo(1);
+        assertThat(rejected("ip")).isZero();
+    }
+
+    @Test
+    void rejectsByIpBeforeTheKeyIsCharged() {
+        EmbedRateLimiter limiter = limiter(1, 1, 1, 1);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", "key-a")).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", "key-b")).isPositive();
+        // key-b was not charged for the request rejected by IP
+        assertThat(limiter.tryAcquire("10.0.0.2", "key-b")).isZero();
+
+        assertThat(rejected("ip")).isEqualTo(1);
+    }
+
+    @Test
+    void skipsMissingIpAndBlankKey() {
+        EmbedRateLimiter limiter = limiter(1, 1, 1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(null, " ")).isZero();
+        }
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws Exception {
+        // About one refill a day: only the burst can be taken during the test
+        EmbedRateLimiter limiter = limiter(0.00001, 50, 1_000, 1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("10.0.0.1", null) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get();
+            }
+
+            assertThat(allowed).isEqualTo(50);
+            assertThat(rejected("ip")).isEqualTo(750);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EmbedRateLimiter limiter(double ipRate, int ipBurst, double keyRate, int keyBurst) {
+        return new EmbedRateLimiter(meterRegistry, ipRate, ipBurst, keyRate, keyBurst, Duration.ofMinutes(1), 1_000);
+    }
+
+    private double rejected(String by) {
+        return meterRegistry.counter("embed.ratelimit.rejected", "by", by).count();
+    }
+}
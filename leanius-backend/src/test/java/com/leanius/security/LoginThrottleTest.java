@@ -0,0 +1,55 @@
+package com.leanius.security;
+
+import com.leanius.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginThrottle throttle = new LoginThrottle(meterRegistry, Duration.ofMinutes(5), 30, 5, 10, 3, 1_000);
+
+    @Test
+    void locksAccountAfterFailedAttemptsUntilSuccess() {
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("10.0.0.1", "a@example.com");
+            throttle.recordFailure("a@example.com");
+        }
+
+        assertThatThrownBy(() -> throttle.acquire("10.0.0.2", "a@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+        throttle.recordSuccess("a@example.com");
+        assertThatCode(() -> throttle.acquire("10.0.0.2", "a@example.com")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void resetRequestsDoNotLockLogin() {
+        for (int i = 0; i < 3; i++) {
+            throttle.acquireReset("10.0.0.1", "a@example.com");
+        }
+
+        assertThatThrownBy(() -> throttle.acquireReset("10.0.0.2", "a@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatCode(() -> throttle.acquire("10.0.0.1", "a@example.com")).doesNotThrowAnyException();
+        assertThat(meterRegistry.counter("auth.throttle.rejected", "by", "reset-account").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("auth.throttle.rejected", "by", "account").count()).isZero();
+    }
+
+    @Test
+    void limitsResetRequestsPerIp() {
+        for (int i = 0; i < 10; i++) {
+            throttle.acquireReset("10.0.0.1", "user" + i + "@example.com");
+        }
+
+        assertThatThrownBy(() -> throttle.acquireReset("10.0.0.1", "other@example.com"))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThatCode(() -> throttle.acquireReset("10.0.0.2", "other@example.com")).doesNotThrowAnyException();
+        assertThat(meterRegistry.counter("auth.throttle.rejected", "by", "reset-ip").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,159 @@
+package com.leanius.service;
+
+import com.leanius.model.QuotaCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmbedQuotaServiceTest {
+
+    private final SharedCounter counter = new SharedCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void spendsALeasedBlockWithoutTouchingTheCounter() {
+        EmbedQuotaService quota = service(100, 10, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(quota.tryAcquire("u1")).isTrue();
+        }
+        verify(counter.template, times(1)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(QuotaCounter.class));
+
+        assertThat(quota.tryAcquire("u1")).isTrue();
+        assertThat(counter.leased.get()).isEqualTo(20);
+    }
+
+    @Test
+    void clampsTheLastBlockToTheDailyLimit() {
+        EmbedQuotaService quota = service(25, 10, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 25; i++) {
+            assertThat(quota.tryAcquire("u1")).isTrue();
+        }
+        assertThat(quota.tryAcquire("u1")).isFalse();
+
+        // The third block overshot by 5 and gave the excess back at once
+        assertThat(counter.leased.get()).isEqualTo(25);
+        assertThat(meterRegistry.counter("apikey.quota.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRecheckAnExhaustedCounterBeforeTheInterval() {
+        EmbedQuotaService quota = service(10, 10, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            quota.tryAcquire("u1");
+        }
+
+        assertThat(quota.tryAcquire("u1")).isFalse();
+        assertThat(quota.tryAcquire("u1")).isFalse();
+
+        verify(counter.template, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(QuotaCounter.class));
+    }
+
+    @Test
+    void givesBackUnusedRequests() {
+        EmbedQuotaService quota = service(100, 10, Duration.ofSeconds(10));
+        for (int i = 0; i < 3; i++) {
+            quota.tryAcquire("u1");
+        }
+        assertThat(counter.leased.get()).isEqualTo(10);
+
+        quota.returnAll();
+
+        assertThat(counter.leased.get()).isEqualTo(3);
+        assertThat(quota.tryAcquire("u1")).isTrue();
+        assertThat(counter.leased.get()).isEqualTo(13);
+    }
+
+    @Test
+    void instancesNeverGrantMoreThanTheLimitTogether() throws Exception {
+        int limit = 1_000;
+        // Two instances sharing one counter, each spent by several threads
+        List<EmbedQuotaService> instances = List.of(service(limit, 7, Duration.ZERO), service(limit, 7, Duration.ZERO));
+        int threadsPerInstance = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsPerInstance * instances.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (EmbedQuotaService instance : instances) {
+                for (int t = 0; t < threadsPerInstance; t++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        int granted = 0;
+                        for (int i = 0; i < 500; i++) {
+                            if (instance.tryAcquire("u1")) {
+                                granted++;
+                            }
+                        }
+                        return granted;
+                    }));
+                }
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get();
+            }
+            instances.forEach(EmbedQuotaService::returnAll);
+
+            assertThat(granted).isLessThanOrEqualTo(limit);
+            // Everything leased but not spent was given back
+            assertThat(counter.leased.get()).isEqualTo(granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EmbedQuotaService service(int dailyLimit, int blockSize, Duration exhaustedRecheck) {
+        return new EmbedQuotaService(counter.template, meterRegistry, dailyLimit, blockSize,
+                Duration.ofMinutes(1), exhaustedRecheck);
+    }
+
+    /**
+     * A quotaCounters document held in memory; the mocked updates apply their $inc atomically,
+     * as Mongo would.
+     */
+    private static final class SharedCounter {
+        final AtomicInteger leased = new AtomicInteger();
+        final MongoTemplate template = mock(MongoTemplate.class);
+
+        SharedCounter() {
+            when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                    eq(QuotaCounter.class)))
+                    .thenAnswer(call -> QuotaCounter.builder().leased(apply(call.getArgument(1))).build());
+            when(template.updateFirst(any(Query.class), any(Update.class), eq(QuotaCounter.class)))
+                    .thenAnswer(call -> {
+                        apply(call.getArgument(1));
+                        return null;
+                    });
+        }
+
+        private int apply(Update update) {
+            Document inc = (Document) update.getUpdateObject().get("$inc");
+            return leased.addAndGet(((Number) inc.get("leased")).intValue());
+        }
+    }
+}
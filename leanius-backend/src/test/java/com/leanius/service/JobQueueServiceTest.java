@@ -0,0 +1,105 @@
+package com.leanius.service;
+
+import com.leanius.model.BackgroundJob;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobQueueServiceTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JobQueueService queue = new JobQueueService(mongoTemplate, meterRegistry, Duration.ofMinutes(5),
+            Duration.ofSeconds(10), Duration.ofHours(1), MAX_ATTEMPTS);
+
+    @Test
+    void leasesUntilTheLimitOrNoJobIsDue() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(BackgroundJob.class)))
+                .thenReturn(job("1", 1), job("2", 1), null);
+
+        assertThat(queue.lease("w-0", 5)).extracting(BackgroundJob::getId).containsExactly("1", "2");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(BackgroundJob.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set.getString("leaseOwner")).isEqualTo("w-0");
+        assertThat(((Document) update.getValue().getUpdateObject().get("$inc")).get("attempts")).isEqualTo(1);
+    }
+
+    @Test
+    void reschedulesFailedJobWithBackoffUnderItsLease() {
+        LocalDateTime before = LocalDateTime.now();
+        queue.fail(List.of(job("1", 2)), new IllegalStateException("boom"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(BackgroundJob.class));
+        assertThat(query.getValue().getQueryObject().getString("leaseOwner")).isEqualTo("w-0");
+
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        // Second attempt: 10s * 2 with +-20% jitter
+        assertThat((LocalDateTime) set.get("runAt")).isBetween(before.plusSeconds(16), LocalDateTime.now().plusSeconds(24));
+        assertThat(set.getString("lastError")).isEqualTo("boom");
+        assertThat((Document) update.getValue().getUpdateObject().get("$unset")).containsKeys("leaseOwner", "leaseUntil");
+        assertThat(meterRegistry.counter("jobs.failed", "type", "DELETE_BLOB").count()).isEqualTo(1);
+    }
+
+    @Test
+    void parksJobsThatUsedUpTheirAttempts() {
+        queue.fail(List.of(job("1", MAX_ATTEMPTS)), new IllegalStateException("x".repeat(600)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(BackgroundJob.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set).containsKey("parkedAt");
+        assertThat(set.getString("lastError")).hasSize(500);
+        assertThat((Document) update.getValue().getUpdateObject().get("$unset")).containsKey("runAt");
+        assertThat(meterRegistry.counter("jobs.parked", "type", "DELETE_BLOB").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("jobs.failed", "type", "DELETE_BLOB").count()).isZero();
+    }
+
+    @Test
+    void completesOnlyJobsStillLeasedByTheWorker() {
+        when(mongoTemplate.remove(any(Query.class), eq(BackgroundJob.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        queue.complete(List.of(job("1", 1), job("2", 1)));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(BackgroundJob.class));
+        assertThat(query.getValue().getQueryObject().getString("leaseOwner")).isEqualTo("w-0");
+        assertThat(meterRegistry.counter("jobs.completed", "type", "DELETE_BLOB").count()).isEqualTo(1);
+    }
+
+    static BackgroundJob job(String id, int attempts) {
+        return BackgroundJob.builder()
+                .id(id)
+                .type(JobQueueService.DELETE_BLOB)
+                .payload(Map.of("blobName", "blob-" + id))
+                .attempts(attempts)
+                .leaseOwner("w-0")
+                .build();
+    }
+}
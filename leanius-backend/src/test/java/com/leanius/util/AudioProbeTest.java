@@ -0,0 +1,200 @@
+package com.leanius.util;
+
+import com.leanius.exception.InvalidFileException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AudioProbeTest {
+
+    // MPEG-1 Layer III, 128 kbps, 44.1 kHz, joint stereo
+    private static final byte[] MP3_FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64};
+
+    @Test
+    void estimatesCbrMp3FromFileSizeAfterId3Tag() {
+        Bytes file = new Bytes().ascii("ID3").bytes(3, 0, 0).bytes(0, 0, 0, 20).zeros(20)
+                .bytes(MP3_FRAME_HEADER).zeros(100);
+
+        AudioProbe.AudioInfo info = probe("mp3", file.toArray(), 30 + 160_000);
+
+        assertThat(info.getFormat()).isEqualTo("mp3");
+        assertThat(info.getBitrate()).isEqualTo(128_000);
+        assertThat(info.getSampleRate()).isEqualTo(44_100);
+        assertThat(info.getChannels()).isEqualTo(2);
+        assertThat(info.getDurationMs()).isEqualTo(10_000);
+    }
+
+    @Test
+    void readsFrameCountFromXingHeader() {
+        Bytes file = new Bytes().bytes(MP3_FRAME_HEADER).zeros(32).ascii("Xing").intBE(1).intBE(256).zeros(20);
+
+        AudioProbe.AudioInfo info = probe("mp3", file.toArray(), 100_000);
+
+        // 256 frames * 1152 samples / 44100 Hz
+        assertThat(info.getDurationMs()).isEqualTo(6_687);
+        assertThat(info.getBitrate()).isEqualTo((int) ((100_000 - 417) * 8000L / 6_687));
+    }
+
+    @Test
+    void readsFrameCountFromVbriHeader() {
+        Bytes file = new Bytes().bytes(MP3_FRAME_HEADER).zeros(32).ascii("VBRI").zeros(10).intBE(512).zeros(10);
+
+        assertThat(probe("mp3", file.toArray(), 200_000).getDurationMs()).isEqualTo(512L * 1152 * 1000 / 44_100);
+    }
+
+    @Test
+    void skipsPaddingBetweenId3TagAndFirstFrame() {
+        Bytes file = new Bytes().ascii("ID3").bytes(3, 0, 0).bytes(0, 0, 0, 0).zeros(7)
+                .bytes(MP3_FRAME_HEADER).zeros(60);
+
+        assertThat(probe("mp3", file.toArray(), 17 + 16_000).getDurationMs()).isEqualTo(1_000);
+    }
+
+    @Test
+    void readsFlacStreamInfo() {
+        long packed = (44_100L << 44) | (1L << 41) | (15L << 36) | 441_000L;
+        Bytes file = new Bytes().ascii("fLaC").bytes(0x80, 0, 0, 34).zeros(10).longBE(packed).zeros(16);
+
+        AudioProbe.AudioInfo info = probe("flac", file.toArray(), 1_000_000);
+
+        assertThat(info.getSampleRate()).isEqualTo(44_100);
+        assertThat(info.getChannels()).isEqualTo(2);
+        assertThat(info.getDurationMs()).isEqualTo(10_000);
+    }
+
+    @Test
+    void readsWavFmtAndDataSkippingOtherChunks() {
+        Bytes file = new Bytes().ascii("RIFF").intLE(0).ascii("WAVE")
+                .ascii("LIST").intLE(3).zeros(4) // odd-sized chunk plus its pad byte
+                .ascii("fmt ").intLE(16).shortLE(1).shortLE(2).intLE(44_100).intLE(176_400).shortLE(4).shortLE(16)
+                .ascii("data").intLE(352_800);
+
+        AudioProbe.AudioInfo info = probe("wav", file.toArray(), 352_800 + 56);
+
+        assertThat(info.getChannels()).isEqualTo(2);
+        assertThat(info.getSampleRate()).isEqualTo(44_100);
+        assertThat(info.getBitrate()).isEqualTo(1_411_200);
+        assertThat(info.getDurationMs()).isEqualTo(2_000);
+    }
+
+    @Test
+    void readsVorbisHeaderAndLastGranuleAfterSkip() {
+        byte[] idHeader = new Bytes().bytes(1).ascii("vorbis").intLE(0).bytes(2).intLE(44_100).zeros(11).toArray();
+        byte[] head = oggPage(0, idHeader);
+        byte[] tail = new Bytes().ascii("xxOgxOg").bytes(oggPage(441_000, new byte[0])).toArray();
+
+        AudioProbe probe = new AudioProbe("ogg");
+        probe.update(head, 0, head.length);
+        assertThat(probe.isHeaderComplete()).isTrue();
+        assertThat(probe.needsTail()).isTrue();
+        probe.skipTo(50_000);
+        probe.update(tail, 0, tail.length);
+        AudioProbe.AudioInfo info = probe.finish(50_000 + tail.length);
+
+        assertThat(info.getFormat()).isEqualTo("ogg");
+        assertThat(info.getChannels()).isEqualTo(2);
+        assertThat(info.getSampleRate()).isEqualTo(44_100);
+        assertThat(info.getDurationMs()).isEqualTo(10_000);
+    }
+
+    @Test
+    void subtractsOpusPreSkip() {
+        byte[] idHeader = new Bytes().ascii("OpusHead").bytes(1, 2).shortLE(312).intLE(48_000).zeros(3).toArray();
+        byte[] file = new Bytes().bytes(oggPage(0, idHeader)).bytes(oggPage(480_312, new byte[0])).toArray();
+
+        assertThat(probe("ogg", file, file.length).getDurationMs()).isEqualTo(10_000);
+    }
+
+    @Test
+    void rejectsContentThatDoesNotMatchTheExtension() {
+        byte[] flac = new Bytes().ascii("fLaC").zeros(8).toArray();
+        byte[] text = "hello world".getBytes(StandardCharsets.US_ASCII);
+
+        assertThatThrownBy(() -> probe("mp3", flac, flac.length)).isInstanceOf(InvalidFileException.class);
+        assertThatThrownBy(() -> probe(null, text, text.length)).isInstanceOf(InvalidFileException.class);
+    }
+
+    @Test
+    void teeFeedsEveryByteRead() throws IOException {
+        byte[] file = new Bytes().bytes(MP3_FRAME_HEADER).zeros(100).toArray();
+        AudioProbe probe = new AudioProbe("mp3");
+        try (InputStream in = probe.tee(new ByteArrayInputStream(file))) {
+            in.read();
+            in.skip(3);
+            in.readAllBytes();
+        }
+
+        assertThat(probe.finish(16_000).getDurationMs()).isEqualTo(1_000);
+    }
+
+    private static AudioProbe.AudioInfo probe(String format, byte[] file, long totalSize) {
+        AudioProbe probe = new AudioProbe(format);
+        // Feed in small pieces so header fields straddle update() calls
+        for (int offset = 0; offset < file.length; offset += 7) {
+            probe.update(file, offset, Math.min(7, file.length - offset));
+        }
+        return probe.finish(totalSize);
+    }
+
+    private static byte[] oggPage(long granule, byte[] payload) {
+        return new Bytes().ascii("OggS").bytes(0, 0).longLE(granule).intLE(1).intLE(0).intLE(0)
+                .bytes(1, payload.length).bytes(payload).toArray();
+    }
+
+    private static final class Bytes {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Bytes ascii(String text) {
+            return bytes(text.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        Bytes bytes(int... values) {
+            for (int value : values) {
+                out.write(value);
+            }
+            return this;
+        }
+
+        Bytes bytes(byte[] values) {
+            out.writeBytes(values);
+            return this;
+        }
+
+        Bytes zeros(int count) {
+            return bytes(new byte[count]);
+        }
+
+        Bytes shortLE(int value) {
+            return bytes(value & 0xFF, (value >> 8) & 0xFF);
+        }
+
+        Bytes intLE(int value) {
+            return bytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+        }
+
+        Bytes intBE(int value) {
+            return bytes(ByteBuffer.allocate(4).putInt(value).array());
+        }
+
+        Bytes longLE(long value) {
+            return bytes(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array());
+        }
+
+        Bytes longBE(long value) {
+            return bytes(ByteBuffer.allocate(8).putLong(value).array());
+        }
+
+        byte[] toArray() {
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.leanius.util;
+
+import com.leanius.model.LyricLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LyricsParserTest {
+
+    private final LyricsParser parser = new LyricsParser(new SimpleMeterRegistry());
+
+    @Test
+    void parsesTimestampsAndText() {
+        List<LyricLine> lines = parser.parseLRCFormat("[00:00.96]One, two\n[01:04.02]  Three  \r\n");
+
+        assertThat(lines).extracting(LyricLine::getStartTimeMs, LyricLine::getText)
+                .containsExactly(tuple(960L, "One, two"), tuple(64_020L, "Three"));
+    }
+
+    @Test
+    void readsTenthsCentisecondsAndMilliseconds() {
+        List<LyricLine> lines = parser.parseLRCFormat("[00:01.5]a\n[00:02.25]b\n[00:03.125]c\n[00:04]d\n[00:05:50]e");
+
+        assertThat(lines).extracting(LyricLine::getStartTimeMs)
+                .containsExactly(1_500L, 2_250L, 3_125L, 4_000L, 5_500L);
+    }
+
+    @Test
+    void rejectsMalformedTimestamps() {
+        List<LyricLine> lines = parser.parseLRCFormat("[00:61.00]bad seconds\n[00:01.1234]bad fraction\n"
+                + "[0a:01.00]bad minutes\n[00:02.00]ok");
+
+        assertThat(lines).extracting(LyricLine::getText).containsExactly("ok");
+    }
+
+    @Test
+    void repeatsTextForEachTimestampInOrder() {
+        List<LyricLine> lines = parser.parseLRCFormat("[00:30.00][00:01.00]Chorus\n[00:10.00]Verse");
+
+        assertThat(lines).extracting(LyricLine::getStartTimeMs, LyricLine::getText)
+                .containsExactly(tuple(1_000L, "Chorus"), tuple(10_000L, "Verse"), tuple(30_000L, "Chorus"));
+    }
+
+    @Test
+    void appliesOffsetTagWithoutGoingNegative() {
+        List<LyricLine> positive = parser.parseLRCFormat("[offset:+500]\n[00:00.20]a\n[00:02.00]b");
+        List<LyricLine> negative = parser.parseLRCFormat("[00:02.00]b\n[OFFSET: -250]");
+
+        assertThat(positive).extracting(LyricLine::getStartTimeMs).containsExactly(0L, 1_500L);
+        assertThat(negative).extracting(LyricLine::getStartTimeMs).containsExactly(2_250L);
+    }
+
+    @Test
+    void skipsMetadataAndEmptyLines() {
+        List<LyricLine> lines = parser.parseLRCFormat("[ti:Title]\n[ar:Artist]\n\n[00:01.00]\n[00:02.00]Text\nplain");
+
+        assertThat(lines).extracting(LyricLine::getText).containsExactly("Text");
+    }
+
+    @Test
+    void returnsEmptyListForNoContent() {
+        assertThat(parser.parseLRCFormat(null)).isEmpty();
+        assertThat(parser.parseLRCFormat("")).isEmpty();
+    }
+
+    @Test
+    void sessionParsesLinesFedOneAtATime() {
+        LyricsParser.Session session = parser.newSession(2);
+        String content = "[00:02.00]second[00:01.00]first";
+        session.acceptLine(content, 0, 16);
+        session.acceptLine(content, 16, content.length());
+
+        assertThat(session.finish()).extracting(LyricLine::getText).containsExactly("first", "second");
+    }
+}
@@ -0,0 +1,70 @@
+package com.leanius.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RangeResponseWriterTest {
+
+    private static final long LENGTH = 1_000;
+    private static final String ETAG = "\"abc\"";
+
+    @Test
+    void sendsWholeFileWithoutRangeHeader() {
+        assertThat(parse(null, null)).isEmpty();
+    }
+
+    @Test
+    void parsesSingleSuffixAndOpenEndedRanges() {
+        assertThat(parse("bytes=0-99", null)).containsExactly(new long[]{0, 99});
+        assertThat(parse("bytes=-100", null)).containsExactly(new long[]{900, 999});
+        assertThat(parse("bytes=500-", null)).containsExactly(new long[]{500, 999});
+    }
+
+    @Test
+    void clampsEndAndSkipsUnsatisfiableRanges() {
+        assertThat(parse("bytes=900-5000", null)).containsExactly(new long[]{900, 999});
+        assertThat(parse("bytes=2000-3000, 0-9", null)).containsExactly(new long[]{0, 9});
+    }
+
+    @Test
+    void rejectsWhenNoRangeIsSatisfiable() {
+        assertThatThrownBy(() -> parse("bytes=1000-", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ignoresMalformedHeader() {
+        assertThat(parse("bytes=abc", null)).isEmpty();
+        assertThat(parse("items=0-10", null)).isEmpty();
+        assertThat(parse("bytes=20-10", null)).isEmpty();
+    }
+
+    @Test
+    void sendsWholeFileForStaleIfRange() {
+        assertThat(parse("bytes=0-99", "\"other\"")).isEmpty();
+        assertThat(parse("bytes=0-99", ETAG)).hasSize(1);
+    }
+
+    @Test
+    void sendsWholeFileForTooManyOrOverlappingRanges() {
+        String many = "bytes=" + "0-1,".repeat(17) + "2-3";
+        assertThat(parse(many, null)).isEmpty();
+        assertThat(parse("bytes=0-799, 200-999", null)).isEmpty();
+    }
+
+    private static List<long[]> parse(String range, String ifRange) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        if (ifRange != null) {
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        }
+        return RangeResponseWriter.parseRanges(request, LENGTH, ETAG);
+    }
+}
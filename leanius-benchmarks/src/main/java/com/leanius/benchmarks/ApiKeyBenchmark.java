@@ -0,0 +1,52 @@
+package com.leanius.benchmarks;
+
+import com.leanius.repository.ApiKeyRepository;
+import com.leanius.repository.UserRepository;
+import com.leanius.security.EmbedKeyCodec;
+import com.leanius.security.EmbedKeyRevocations;
+import com.leanius.service.ApiKeyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * API key generation and validation of signed keys, as done on every embed request.
+ */
+@State(Scope.Benchmark)
+public class ApiKeyBenchmark {
+
+    private static final String USER_ID = "65a000000000000000000001";
+
+    private ApiKeyService apiKeyService;
+    private String apiKey;
+
+    @Setup
+    public void setup() {
+        EmbedKeyRevocations revocations = new EmbedKeyRevocations(null);
+        // A few rotated users, as in production
+        for (int i = 0; i < 1000; i++) {
+            revocations.revokeBefore(String.format("65b%021d", i), 2);
+        }
+        apiKeyService = new ApiKeyService(
+                BenchmarkSupport.repository(ApiKeyRepository.class, Map.of()),
+                BenchmarkSupport.repository(UserRepository.class, Map.of()),
+                new EmbedKeyCodec("", "benchmark-secret-key-with-at-least-256-bits-for-hs256-signing"),
+                revocations,
+                new SimpleMeterRegistry());
+        apiKey = apiKeyService.generateApiKey(USER_ID);
+    }
+
+    @Benchmark
+    public String generateApiKey() {
+        return apiKeyService.generateApiKey(USER_ID);
+    }
+
+    @Benchmark
+    public String validateApiKey() {
+        return apiKeyService.validateApiKey(apiKey);
+    }
+}
@@ -0,0 +1,161 @@
+package com.leanius.benchmarks;
+
+import com.leanius.model.LyricLine;
+import com.leanius.model.Song;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Shared fixtures for the benchmarks: sample data, field injection for
+ * {@code @Value} properties, and repository stand-ins.
+ */
+final class BenchmarkSupport {
+
+    private static final String[] WORDS = {
+            "love", "night", "running", "through", "the", "city", "lights", "ooh", "baby", "tonight",
+            "never", "gonna", "stop", "heart", "fire", "dancing", "alone", "forever", "sky", "falling"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * LRC content shaped like an LRCLib response: a few metadata tags and timestamped lines.
+     */
+    static String sampleLrc(int lines) {
+        StringBuilder lrc = new StringBuilder(lines * 40);
+        lrc.append("[ar:Benchmark Artist]\n[ti:Benchmark Song]\n[length:03:45]\n");
+        for (int i = 0; i < lines; i++) {
+            long ms = i * 3_250L + (i % 7) * 13;
+            lrc.append(String.format("[%02d:%02d.%02d] ", ms / 60_000, (ms / 1000) % 60, (ms % 1000) / 10));
+            int words = 4 + i % 6;
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    lrc.append(' ');
+                }
+                lrc.append(WORDS[(i * 31 + w * 7) % WORDS.length]);
+            }
+            lrc.append('\n');
+        }
+        return lrc.toString();
+    }
+
+    static List<LyricLine> sampleLyrics(int lines) {
+        List<LyricLine> lyrics = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            lyrics.add(new LyricLine(i * 3_250L, WORDS[i % WORDS.length] + " " + WORDS[(i * 7) % WORDS.length]));
+        }
+        return lyrics;
+    }
+
+    static List<Song> sampleSongs(int count, String userId) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(Song.builder()
+                    .id(String.format("65a%021d", i))
+                    .userId(userId)
+                    .title("Song " + i)
+                    .artist("Artist " + (i % 17))
+                    .audioUrl("https://leanius.blob.core.windows.net/leanius-audio/" + userId + "/1700000000000_abcd" + i + ".mp3")
+                    .audioFileSize(4_000_000L + i)
+                    .audioFormat("mp3")
+                    .duration(215_000L)
+                    .syncedLyrics(sampleLyrics(60))
+                    .syncType("SYNCED")
+                    .frequencyWeight(1 + i % 5)
+                    .lyricsConfirmed(true)
+                    .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                    .updatedAt(LocalDateTime.of(2024, 1, 2, 12, 0))
+                    .build());
+        }
+        return songs;
+    }
+
+    /**
+     * Set a (typically {@code @Value}-injected) private field.
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set field " + name, e);
+        }
+    }
+
+    /**
+     * A repository stand-in: methods in {@code answers} return the mapped value, everything else
+     * an empty value of its return type (false, a zero of the right width, Optional.empty(), an
+     * empty list or stream, otherwise null).
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            switch (method.getName()) {
+                case "toString" -> {
+                    return type.getSimpleName() + "Stub";
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    return emptyValue(method.getReturnType());
+                }
+            }
+        });
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return false;
+        }
+        if (type == long.class || type == Long.class) {
+            return 0L;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 0;
+        }
+        if (type == short.class || type == Short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class || type == Byte.class) {
+            return (byte) 0;
+        }
+        if (type == double.class || type == Double.class) {
+            return 0d;
+        }
+        if (type == float.class || type == Float.class) {
+            return 0f;
+        }
+        if (type == char.class || type == Character.class) {
+            return '\0';
+        }
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type == List.class || type == Collection.class || type == Iterable.class) {
+            return List.of();
+        }
+        if (type == Stream.class) {
+            return Stream.empty();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.leanius.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal local stand-in for the Blob service, enough for the SDK's upload and download paths.
+ *
+ * Writes (Put Block, Put Block List, Put Blob) are read and discarded; every read returns the
+ * same seeded content. Each request is delayed by a fixed latency to model the network round trip.
+ */
+final class BlobStandIn implements AutoCloseable {
+
+    static final String ACCOUNT = "devstoreaccount1";
+    // Well-known development storage key (Azurite), not a secret
+    private static final String ACCOUNT_KEY =
+            "Eby8vdM02xNOcqFlqUwJPLlmEtlCDXJ1OUzFT50uSRZ6IFsuFq2UVErCz4I6tq/K1SZFPTOtr/KBHBeksoGMGw==";
+    private static final String ETAG = "\"0x8DC0000000000000\"";
+    private static final String LAST_MODIFIED = "Mon, 01 Jan 2024 00:00:00 GMT";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final byte[] content;
+    private final long latencyMillis;
+
+    BlobStandIn(byte[] content, long latencyMillis) throws IOException {
+        this.content = content;
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String connectionString() {
+        return "DefaultEndpointsProtocol=http;AccountName=" + ACCOUNT + ";AccountKey=" + ACCOUNT_KEY
+                + ";BlobEndpoint=http://127.0.0.1:" + server.getAddress().getPort() + "/" + ACCOUNT + ";";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            Thread.sleep(latencyMillis);
+
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            exchange.getResponseHeaders().add("x-ms-request-id", "standin");
+            exchange.getResponseHeaders().add("x-ms-version", "2023-11-03");
+
+            String method = exchange.getRequestMethod();
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null && query.contains("restype=container")) {
+                exchange.sendResponseHeaders(200, -1);
+            } else if (method.equals("PUT")) {
+                exchange.sendResponseHeaders(201, -1);
+            } else if (method.equals("DELETE")) {
+                exchange.sendResponseHeaders(202, -1);
+            } else if (method.equals("GET") || method.equals("HEAD")) {
+                sendContent(exchange, method.equals("HEAD"));
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendContent(HttpExchange exchange, boolean headOnly) throws IOException {
+        exchange.getResponseHeaders().add("x-ms-blob-type", "BlockBlob");
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+
+        String range = exchange.getRequestHeaders().getFirst("x-ms-range");
+        if (range == null) {
+            range = exchange.getRequestHeaders().getFirst("Range");
+        }
+        long start = 0;
+        long end = content.length - 1L;
+        int status = 200;
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            start = Long.parseLong(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Long.parseLong(bounds[1]));
+            }
+            status = 206;
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = (int) (end - start + 1);
+        exchange.getResponseHeaders().add("x-ms-blob-content-length", String.valueOf(content.length));
+        if (headOnly) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content, (int) start, length);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.leanius.benchmarks;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.util.ClientOptions;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.leanius.service.AzureStorageService;
+import com.leanius.service.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AzureStorageService upload (stream, staged blocks) and download (cache fill) of a 16 MB
+ * blob against a local {@link BlobStandIn} with 20 ms per request. {@code parallelism=1} is
+ * the serial baseline (one block or range at a time); 4 threads share one connection pool
+ * of {@code maxConnections}, so a small pool shows transfers queueing for connections.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class BlobTransferBenchmark {
+
+    private static final int BLOB_SIZE = 16 * 1024 * 1024;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    @Param({"4", "16"})
+    private int maxConnections;
+
+    private final AtomicLong uploads = new AtomicLong();
+    private BlobStandIn standIn;
+    private ConnectionProvider connectionPool;
+    private AzureStorageService storageService;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        payload = new byte[BLOB_SIZE];
+        ThreadLocalRandom.current().nextBytes(payload);
+        standIn = new BlobStandIn(payload, 20);
+
+        // As StorageConfig builds it
+        connectionPool = ConnectionProvider.builder("azure-storage")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(1000)
+                .pendingAcquireTimeout(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = new NettyAsyncHttpClientBuilder()
+                .connectionProvider(connectionPool)
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+        storageService = new AzureStorageService(httpClient, new RequestRetryOptions(), new ClientOptions(),
+                new SimpleMeterRegistry(), DataSize.ofMegabytes(4), parallelism, DataSize.ofMegabytes(4), parallelism);
+        BenchmarkSupport.setField(storageService, "connectionString", standIn.connectionString());
+        BenchmarkSupport.setField(storageService, "containerName", "bench");
+        storageService.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.dispose();
+        standIn.close();
+    }
+
+    @Benchmark
+    public StorageBackend.UploadResult upload() {
+        return storageService.uploadStream(new ByteArrayInputStream(payload), "bench/" + uploads.incrementAndGet(),
+                Long.MAX_VALUE, true, sha256 -> null);
+    }
+
+    @Benchmark
+    public long download(DownloadTarget target) throws IOException {
+        storageService.downloadToFile("bench/seed.bin", target.file);
+        return Files.size(target.file);
+    }
+
+    /**
+     * One scratch file per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class DownloadTarget {
+        Path file;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException {
+            file = Files.createTempFile("blob-bench", ".bin");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.leanius.benchmarks;
+
+import com.leanius.config.CorsConfig;
+import com.leanius.config.SecurityConfig;
+import com.leanius.repository.ApiKeyRepository;
+import com.leanius.repository.UserRepository;
+import com.leanius.security.CustomUserDetailsService;
+import com.leanius.security.EmbedKeyCodec;
+import com.leanius.security.EmbedKeyRevocations;
+import com.leanius.security.EmbedRateLimiter;
+import com.leanius.security.JwtAuthenticationFilter;
+import com.leanius.security.JwtTokenProvider;
+import com.leanius.service.ApiKeyService;
+import com.leanius.util.ClientIpResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.Map;
+
+/**
+ * Servlet filter overhead of one /embed/songs request, up to the controller.
+ *
+ * {@code shared}: the previous setup, where embed requests went through the main chain (CORS,
+ * JWT filter also registered as a servlet filter, security context, anonymous authentication,
+ * authorization) and the controller validated the key.
+ * {@code embed}: the dedicated embed chain of SecurityConfig, which checks the burst limits
+ * (set high enough never to reject) and validates the key itself.
+ * The global CorsFilter runs in both.
+ */
+@State(Scope.Benchmark)
+public class EmbedFilterChainBenchmark {
+
+    private static final String USER_ID = "65a000000000000000000001";
+
+    @Param({"shared", "embed"})
+    public String chain;
+
+    private AnnotationConfigServletWebApplicationContext context;
+    private Filter[] filters;
+    private ApiKeyService apiKeyService;
+    private String apiKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new AnnotationConfigServletWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getBeanFactory().setConversionService(new ApplicationConversionService());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "cors.allowed-origins", "https://leanius.app",
+                "jwt.secret", "benchmark-secret-key-with-at-least-256-bits-for-hs256-signing",
+                "jwt.expiration", "999999999999",
+                "embed.rate-limit.per-ip.rate", "1000000000",
+                "embed.rate-limit.per-key.rate", "1000000000")));
+        context.registerBean(UserRepository.class, () -> BenchmarkSupport.repository(UserRepository.class, Map.of()));
+        context.registerBean(ApiKeyRepository.class, () -> BenchmarkSupport.repository(ApiKeyRepository.class, Map.of()));
+        context.registerBean(EmbedKeyRevocations.class, () -> new EmbedKeyRevocations(null));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(ObservationRegistry.class, () -> ObservationRegistry.NOOP);
+        context.register(EmbedKeyCodec.class, ApiKeyService.class, JwtTokenProvider.class,
+                CustomUserDetailsService.class, JwtAuthenticationFilter.class, EmbedRateLimiter.class,
+                ClientIpResolver.class, CorsConfig.class, MvcConfig.class,
+                "shared".equals(chain) ? SharedChainConfig.class : SecurityConfig.class);
+        context.refresh();
+
+        apiKeyService = context.getBean(ApiKeyService.class);
+        apiKey = apiKeyService.generateApiKey(USER_ID);
+        CorsFilter corsFilter = context.getBean(CorsFilter.class);
+        FilterChainProxy securityFilters = context.getBean(FilterChainProxy.class);
+        filters = "shared".equals(chain)
+                ? new Filter[]{corsFilter, context.getBean(JwtAuthenticationFilter.class), securityFilters}
+                : new Filter[]{corsFilter, securityFilters};
+        try {
+            if (embedRequest() != 200) {
+                throw new IllegalStateException("Embed request was rejected by the " + chain + " chain");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int embedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(HttpMethod.GET.name(), "/api/v1/embed/songs");
+        request.setContextPath("/api/v1");
+        request.setServletPath("/embed/songs");
+        request.setParameter("key", apiKey);
+        request.addHeader("Origin", "https://leanius.app");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(new ControllerStandIn(), filters).doFilter(request, response);
+        return response.getStatus();
+    }
+
+    /**
+     * Where the dispatcher would be; validates the key when no filter did.
+     */
+    private final class ControllerStandIn extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            if (request.getAttribute("com.leanius.embed.userId") == null) {
+                apiKeyService.validateApiKey(request.getParameter("key"));
+            }
+            response.setStatus(200);
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class MvcConfig {
+    }
+
+    /**
+     * The single chain embed requests used to go through.
+     */
+    @Configuration
+    @EnableWebSecurity
+    static class SharedChainConfig {
+
+        @Bean
+        public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                       JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                       CustomUserDetailsService userDetailsService,
+                                                       CorsConfigurationSource corsConfigurationSource) throws Exception {
+            DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+            authProvider.setUserDetailsService(userDetailsService);
+            authProvider.setPasswordEncoder(NoOpPasswordEncoder.getInstance());
+            http
+                    .cors(cors -> cors.configurationSource(corsConfigurationSource))
+                    .csrf(AbstractHttpConfigurer::disable)
+                    .authorizeHttpRequests(auth -> auth
+                            .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                            .requestMatchers("/auth/**", "/embed/**", "/files/**", "/health/**", "/actuator/**").permitAll()
+                            .anyRequest().authenticated())
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .authenticationProvider(authProvider)
+                    .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            return http.build();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.leanius.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leanius.dto.ApiResponse;
+import com.leanius.dto.EmbedSongsResponse;
+import com.leanius.dto.SongDTO;
+import com.leanius.model.Song;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Jackson serialization of the /embed/songs response body, configured like
+ * Spring Boot's default ObjectMapper.
+ */
+@State(Scope.Benchmark)
+public class EmbedSerializationBenchmark {
+
+    private static final String USER_ID = "65a000000000000000000001";
+
+    @Param({"10", "100", "1000"})
+    private int songs;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<EmbedSongsResponse> response;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<SongDTO> songDTOs = BenchmarkSupport.sampleSongs(songs, USER_ID).stream()
+                .map(EmbedSerializationBenchmark::toDTO)
+                .toList();
+
+        response = ApiResponse.success(EmbedSongsResponse.builder()
+                .userId(USER_ID)
+                .songs(songDTOs)
+                .totalSongs(songDTOs.size())
+                .lastUpdate(Instant.parse("2024-01-02T12:00:00Z"))
+                .build());
+    }
+
+    @Benchmark
+    public byte[] serializeEmbedSongs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private static SongDTO toDTO(Song song) {
+        return SongDTO.builder()
+                .id(song.getId())
+                .title(song.getTitle())
+                .artist(song.getArtist())
+                .audioUrl(song.getAudioUrl() + "?sv=2023-11-03&se=2025-01-01T00%3A00%3A00Z&sr=b&sp=r&sig=abcdef")
+                .duration(song.getDuration())
+                .frequencyWeight(song.getFrequencyWeight())
+                .syncOffset(song.getSyncOffset())
+                .syncType(song.getSyncType())
+                .syncedLyrics(song.getSyncedLyrics())
+                .build();
+    }
+}
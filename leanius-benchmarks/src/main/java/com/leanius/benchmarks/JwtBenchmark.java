@@ -0,0 +1,55 @@
+package com.leanius.benchmarks;
+
+import com.leanius.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JWT verification as done on every authenticated request.
+ */
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JwtTokenProvider jwtTokenProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtTokenProvider = new JwtTokenProvider();
+        BenchmarkSupport.setField(jwtTokenProvider, "jwtSecret",
+                "benchmark-secret-key-with-at-least-256-bits-for-hs256-signing");
+        BenchmarkSupport.setField(jwtTokenProvider, "jwtExpiration", 999999999999L);
+        jwtTokenProvider.init();
+        token = jwtTokenProvider.generateToken("65a000000000000000000001", "user@gmail.com", "Benchmark User");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUserId() {
+        return jwtTokenProvider.extractUserId(token);
+    }
+
+    /**
+     * What JwtAuthenticationFilter did per request before it verified once.
+     */
+    @Benchmark
+    public String validateThenExtractUserId() {
+        return jwtTokenProvider.validateToken(token) ? jwtTokenProvider.extractUserId(token) : null;
+    }
+
+    /**
+     * What JwtAuthenticationFilter does per request.
+     */
+    @Benchmark
+    public String parseClaims() {
+        Claims claims = jwtTokenProvider.parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.leanius.benchmarks;
+
+import com.leanius.model.LyricLine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex-based LRC parser that LyricsParser replaced, kept verbatim as the
+ * baseline for {@link LyricsParserBenchmark}.
+ */
+final class LegacyRegexLyricsParser {
+
+    // LRC format: [mm:ss.xx] or [mm:ss:xx] text
+    private static final Pattern LRC_LINE_PATTERN = Pattern.compile("\\[(\\d{2}):(\\d{2})[.:](\\d{2,3})](.*)");
+
+    List<LyricLine> parseLRCFormat(String lrcContent) {
+        List<LyricLine> lyrics = new ArrayList<>();
+
+        if (lrcContent == null || lrcContent.isEmpty()) {
+            return lyrics;
+        }
+
+        String[] lines = lrcContent.split("\n");
+
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            List<Long> timestamps = new ArrayList<>();
+            String text = line;
+
+            Matcher matcher = LRC_LINE_PATTERN.matcher(line);
+            while (matcher.find()) {
+                try {
+                    int minutes = Integer.parseInt(matcher.group(1));
+                    int seconds = Integer.parseInt(matcher.group(2));
+                    String msString = matcher.group(3);
+                    int milliseconds;
+
+                    if (msString.length() == 2) {
+                        milliseconds = Integer.parseInt(msString) * 10;
+                    } else {
+                        milliseconds = Integer.parseInt(msString);
+                    }
+
+                    long startTimeMs = (minutes * 60L * 1000L) + (seconds * 1000L) + milliseconds;
+                    timestamps.add(startTimeMs);
+                    text = matcher.group(4).trim();
+                } catch (NumberFormatException e) {
+                    // ignored, as in the original
+                }
+            }
+
+            if (text.isEmpty() || isMetadataLine(line)) {
+                continue;
+            }
+
+            for (Long timestamp : timestamps) {
+                lyrics.add(LyricLine.builder()
+                        .startTimeMs(timestamp)
+                        .text(text)
+                        .build());
+            }
+        }
+
+        lyrics.sort((a, b) -> Long.compare(a.getStartTimeMs(), b.getStartTimeMs()));
+        return lyrics;
+    }
+
+    private boolean isMetadataLine(String line) {
+        return line.matches("\\[(ti|ar|al|au|length|by|offset|re|ve):.*]");
+    }
+}
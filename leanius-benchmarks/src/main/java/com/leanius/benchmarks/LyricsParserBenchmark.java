@@ -0,0 +1,44 @@
+package com.leanius.benchmarks;
+
+import com.leanius.model.LyricLine;
+import com.leanius.util.LyricsParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * LRC parsing: the current single-pass LyricsParser against the old regex implementation.
+ * Run with the GC profiler (the default in BenchmarkRunner) to compare allocation per parse.
+ */
+@State(Scope.Benchmark)
+public class LyricsParserBenchmark {
+
+    @Param({"60", "400"})
+    private int lines;
+
+    private String lrc;
+    private LyricsParser parser;
+    private LegacyRegexLyricsParser legacyParser;
+
+    @Setup
+    public void setup() {
+        lrc = BenchmarkSupport.sampleLrc(lines);
+        parser = new LyricsParser(new SimpleMeterRegistry());
+        legacyParser = new LegacyRegexLyricsParser();
+    }
+
+    @Benchmark
+    public List<LyricLine> parseLRCFormat() {
+        return parser.parseLRCFormat(lrc);
+    }
+
+    @Benchmark
+    public List<LyricLine> parseLRCFormatLegacyRegex() {
+        return legacyParser.parseLRCFormat(lrc);
+    }
+}
@@ -0,0 +1,58 @@
+package com.leanius.benchmarks;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.util.ClientOptions;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.leanius.dto.SongDTO;
+import com.leanius.model.Song;
+import com.leanius.repository.SongRepository;
+import com.leanius.service.AzureStorageService;
+import com.leanius.service.SongService;
+import com.leanius.util.FileValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Song entity to SongDTO mapping (SongService.toSongDTO) through getUserSongs,
+ * with the repository answering from memory. Storage is left unconfigured, so
+ * the audio URL is passed through without SAS generation.
+ */
+@State(Scope.Benchmark)
+public class SongMappingBenchmark {
+
+    private static final String USER_ID = "65a000000000000000000001";
+
+    @Param({"10", "100", "1000"})
+    private int songs;
+
+    private SongService songService;
+
+    @Setup
+    public void setup() {
+        List<Song> library = BenchmarkSupport.sampleSongs(songs, USER_ID);
+        SongRepository songRepository = BenchmarkSupport.repository(SongRepository.class,
+                Map.of("findByUserIdAndLyricsConfirmed", args -> library));
+
+        AzureStorageService storageService = new AzureStorageService(HttpClient.createDefault(),
+                new RequestRetryOptions(), new ClientOptions(), new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(4), 4, DataSize.ofMegabytes(4), 4);
+        BenchmarkSupport.setField(storageService, "containerName", "leanius-audio");
+
+        songService = new SongService(songRepository, null, storageService, null, null, new FileValidator(),
+                ObservationRegistry.NOOP);
+    }
+
+    @Benchmark
+    public List<SongDTO> getUserSongs() {
+        return songService.getUserSongs(USER_ID);
+    }
+}